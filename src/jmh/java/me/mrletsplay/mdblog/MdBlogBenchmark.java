@@ -0,0 +1,141 @@
+package me.mrletsplay.mdblog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.mrletsplay.mdblog.benchmark.Corpus;
+import me.mrletsplay.mdblog.blog.BlogSnapshot;
+import me.mrletsplay.mdblog.blog.PostEntry;
+import me.mrletsplay.mdblog.blog.PostTree;
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.rss.FeedConfig;
+import me.mrletsplay.mdblog.util.LinkStyle;
+import me.mrletsplay.mdblog.util.PostPath;
+
+// Runs the pipeline of MdBlog on a generated corpus. This is in the same package as MdBlog to access its build methods
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MdBlogBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Blog {
+
+		@Param({"100", "1000", "10000"})
+		private int posts;
+
+		@Param({"3"})
+		private int depth;
+
+		@Param({"20"})
+		private int paragraphs;
+
+		@Param({"5"})
+		private int tags;
+
+		private Path filesPath;
+		private BlogSnapshot snapshot;
+		private PostTree root;
+		private FeedConfig feedConfig;
+		private List<String> requestPaths;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			// Every parameter combination runs in its own fork, so MdBlog hasn't been initialized yet
+			filesPath = Files.createTempDirectory("mdblog-benchmark");
+			System.setProperty("mdblog.files", filesPath.toString());
+			Corpus.generate(filesPath.resolve("posts"), 0, posts, depth, paragraphs, tags);
+
+			MdBlog.init(LinkStyle.QUERY, null);
+			MdBlog.updateBlogs();
+			snapshot = MdBlog.getPublishedSnapshot();
+			root = snapshot.getPosts();
+			feedConfig = new FeedConfig("Benchmark", "A generated blog", "http://localhost");
+
+			requestPaths = new ArrayList<>();
+			root.forEachPost((path, post) -> requestPaths.add(path.toString()));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			try(Stream<Path> files = Files.walk(filesPath)) {
+				for(Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+			}
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class ColdBlog {
+
+		// Drops all rendered posts so the next rebuild starts from scratch
+		@Setup(Level.Invocation)
+		public void reset(Blog blog) throws IOException {
+			MdBlog.init(LinkStyle.QUERY, null);
+		}
+
+	}
+
+	@Benchmark
+	public CachedDocument indexPage(Blog blog) {
+		return MdBlog.renderPostsIndex(blog.snapshot, PostPath.root(), blog.root, blog.root.getPostsNewestFirst(), null, 1);
+	}
+
+	@Benchmark
+	public CachedDocument tagPage(Blog blog) {
+		return MdBlog.renderPostsIndex(blog.snapshot, PostPath.root(), blog.root, blog.root.getPostsWithTag("tag-0"), "tag-0", 1);
+	}
+
+	@Benchmark
+	public CachedDocument recursiveFeed(Blog blog) {
+		List<PostEntry> entries = MdBlog.getFeedEntries(blog.root, true, null);
+		return MdBlog.createFeed(PostPath.root(), blog.feedConfig, entries);
+	}
+
+	// Parses the path of every post like a request and looks it up in the tree, run with "-prof gc" to compare the allocations
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int resolveRequestPaths(Blog blog) {
+		int found = 0;
+		for(String path : blog.requestPaths) {
+			if(blog.root.getPost(PostPath.parse(path)) != null) found++;
+		}
+		return found;
+	}
+
+	// Rescans the tree without any changes, so only the post files are read and hashed
+	@Benchmark
+	public BlogSnapshot rebuildUnchanged(Blog blog) throws IOException {
+		MdBlog.updateBlogs();
+		return MdBlog.getPublishedSnapshot();
+	}
+
+	@Benchmark
+	public BlogSnapshot rebuildCold(Blog blog, ColdBlog cold) throws IOException {
+		MdBlog.updateBlogs();
+		return MdBlog.getPublishedSnapshot();
+	}
+
+}
@@ -0,0 +1,78 @@
+package me.mrletsplay.mdblog.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+// Generates synthetic posts, the same seed always produces the same corpus
+public class Corpus {
+
+	private static final String[] WORDS = {
+		"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+		"eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim",
+		"minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi", "aliquip", "commodo",
+	};
+
+	private static final int
+		TAG_COUNT = 50,
+		DIRECTORY_FAN_OUT = 4;
+
+	private static final Instant START_DATE = Instant.parse("2020-01-01T00:00:00Z");
+
+	public static String generatePost(Random random, int paragraphs, int tags) {
+		StringBuilder post = new StringBuilder();
+		post.append("date: ").append(START_DATE.plus(random.nextInt(365 * 5), ChronoUnit.DAYS).plusSeconds(random.nextInt(86400))).append('\n');
+		post.append("title: ").append(sentence(random, 3 + random.nextInt(5))).append('\n');
+		post.append("author: Author ").append(random.nextInt(10)).append('\n');
+		post.append("description: ").append(sentence(random, 10 + random.nextInt(10))).append('\n');
+
+		Set<String> postTags = new LinkedHashSet<>();
+		while(postTags.size() < Math.min(tags, TAG_COUNT)) postTags.add("tag-" + random.nextInt(TAG_COUNT));
+		post.append("tags: ").append(String.join(", ", postTags)).append('\n');
+		post.append("---\n");
+
+		for(int i = 0; i < paragraphs; i++) {
+			switch(random.nextInt(8)) {
+				case 0 -> post.append("## ").append(sentence(random, 4));
+				case 1 -> post.append("- ").append(sentence(random, 6)).append("\n- ").append(sentence(random, 6)).append("\n- [x] ").append(sentence(random, 4));
+				case 2 -> post.append("```\n").append(sentence(random, 8)).append("\n```");
+				case 3 -> post.append("> ").append(sentence(random, 12));
+				case 4 -> post.append("| A | B |\n|---|---|\n| ").append(sentence(random, 2)).append(" | ").append(sentence(random, 2)).append(" |");
+				default -> post.append(sentence(random, 20)).append(" Some *emphasized* and **strong** text with `code` and a [link](https://example.com).\n").append(sentence(random, 20));
+			}
+			post.append("\n\n");
+		}
+
+		return post.toString();
+	}
+
+	// Posts are spread over directories up to the given depth, paragraph counts vary between half and one and a half times the given size
+	public static void generate(Path postsPath, long seed, int posts, int depth, int paragraphs, int tags) throws IOException {
+		Random random = new Random(seed);
+		for(int i = 0; i < posts; i++) {
+			Path directory = postsPath;
+			int postDepth = random.nextInt(depth + 1);
+			for(int d = 0; d < postDepth; d++) directory = directory.resolve("blog-" + random.nextInt(DIRECTORY_FAN_OUT));
+
+			int postParagraphs = Math.max(1, paragraphs / 2 + random.nextInt(paragraphs + 1));
+			Files.createDirectories(directory);
+			Files.writeString(directory.resolve("post-" + i + ".md"), generatePost(random, postParagraphs, tags), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static String sentence(Random random, int words) {
+		StringBuilder sentence = new StringBuilder();
+		for(int i = 0; i < words; i++) {
+			if(i > 0) sentence.append(' ');
+			sentence.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return sentence.toString();
+	}
+
+}
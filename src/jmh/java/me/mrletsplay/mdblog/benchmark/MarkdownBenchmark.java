@@ -0,0 +1,61 @@
+package me.mrletsplay.mdblog.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.commonmark.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.mrletsplay.mdblog.markdown.MdParser;
+import me.mrletsplay.mdblog.markdown.MdRenderer;
+import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarkdownBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int paragraphs;
+
+	private String markdown;
+	private MdRenderer renderer;
+	private Node document;
+
+	@Setup
+	public void setup() {
+		String post = Corpus.generatePost(new Random(0), paragraphs, 5);
+		markdown = post.substring(post.indexOf("\n---\n") + 5);
+		renderer = new MdRenderer();
+		document = MdParser.parse(markdown);
+	}
+
+	@Benchmark
+	public Node parse() {
+		return MdParser.parse(markdown);
+	}
+
+	@Benchmark
+	public HtmlElement render() {
+		return renderer.render(document);
+	}
+
+	@Benchmark
+	public String renderToString() {
+		return renderer.render(document).toString();
+	}
+
+}
@@ -0,0 +1,88 @@
+package me.mrletsplay.mdblog.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.commonmark.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.mrletsplay.mdblog.markdown.MdParser;
+import me.mrletsplay.mdblog.markdown.MdRenderContext;
+import me.mrletsplay.mdblog.markdown.MdRenderer;
+import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MdRendererBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int sections;
+
+	private MdRenderer renderer;
+	private Node document;
+
+	@Setup
+	public void setup() {
+		StringBuilder md = new StringBuilder();
+		for(int i = 0; i < sections; i++) {
+			md.append("## Section ").append(i).append("\n\n")
+				.append("Some *emphasized* and **strong** text with `code`, a [link](https://example.com \"Title\") and ~~strikethrough~~.\n")
+				.append("A second line in the same paragraph.\n\n")
+				.append("- [x] Done\n- [ ] Not done\n- Item with ++inserted++ text\n\n")
+				.append("> Quoted text\n\n")
+				.append("| A | B |\n|---|---|\n| 1 | 2 |\n\n")
+				.append("```\ncode block ").append(i).append("\n```\n\n");
+		}
+
+		renderer = new MdRenderer();
+		document = MdParser.parse(md.toString());
+	}
+
+	@Benchmark
+	public HtmlElement dispatchTable() {
+		return renderer.render(document);
+	}
+
+	@Benchmark
+	public HtmlElement reflection() {
+		return renderReflective(document);
+	}
+
+	// Previous implementation of MdRenderer#render(Node), which looked up the render method using reflection and created a new context for every node
+	private HtmlElement renderReflective(Node node) {
+		MdRenderContext ctx = new MdRenderContext(renderer);
+
+		HtmlElement element;
+		try {
+			Method m = MdRenderer.class.getDeclaredMethod("render", MdRenderContext.class, node.getClass());
+			element = (HtmlElement) m.invoke(renderer, ctx, node);
+		}catch(NoSuchMethodException e) {
+			return null;
+		}catch(ReflectiveOperationException e) {
+			throw new RuntimeException(e);
+		}
+
+		if(element == null) return null;
+		for(Node ch = node.getFirstChild(); ch != null; ch = ch.getNext()) {
+			HtmlElement chEl = renderReflective(ch);
+			if(chEl == null) continue;
+			element.appendChild(chEl);
+		}
+		return element;
+	}
+
+}
@@ -0,0 +1,88 @@
+package me.mrletsplay.mdblog.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.mrletsplay.mdblog.blog.Post;
+import me.mrletsplay.mdblog.http.StaticResources;
+import me.mrletsplay.mdblog.template.Template;
+import me.mrletsplay.mdblog.template.Templates;
+import me.mrletsplay.mdblog.util.LinkStyle;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int paragraphs;
+
+	private Path file;
+	private Templates templates;
+	private Post post;
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("post", Post.FILE_EXTENSION);
+		Files.writeString(file, Corpus.generatePost(new Random(0), paragraphs, 5), StandardCharsets.UTF_8);
+
+		templates = new Templates(null);
+		for(Template template : Template.values()) {
+			try(InputStream in = Post.class.getResourceAsStream("/template/" + template.getName() + ".md")) {
+				templates.put(template, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+
+		post = Post.load(file, null, templates, StaticResources.empty(), LinkStyle.QUERY, null, null);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public Post load() throws IOException {
+		return Post.load(file, null, templates, StaticResources.empty(), LinkStyle.QUERY, null, null);
+	}
+
+	// Only reads and hashes the file, the post is returned as it is
+	@Benchmark
+	public Post updateUnchanged() throws IOException {
+		return post.update(null, templates, StaticResources.empty(), LinkStyle.QUERY, null, null);
+	}
+
+	@Benchmark
+	public String renderTemplate() {
+		return templates.render(Template.INDEX_POST,
+			"title", "Title",
+			"author", "Author",
+			"date", "2020-01-01",
+			"date_time", "2020-01-01 00:00",
+			"date_relative", "1 day ago",
+			"description", "Description",
+			"tags", "tag-1, tag-2");
+	}
+
+}
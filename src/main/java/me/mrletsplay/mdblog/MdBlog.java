@@ -1,110 +1,183 @@
 package me.mrletsplay.mdblog;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import me.mrletsplay.mdblog.blog.BlogSnapshot;
+import me.mrletsplay.mdblog.blog.BlogSnapshot.FeedKey;
+import me.mrletsplay.mdblog.blog.BlogSnapshot.IndexKey;
 import me.mrletsplay.mdblog.blog.Post;
+import me.mrletsplay.mdblog.blog.PostEntry;
 import me.mrletsplay.mdblog.blog.PostMetadata;
+import me.mrletsplay.mdblog.blog.PostContentCache;
+import me.mrletsplay.mdblog.blog.PostTree;
+import me.mrletsplay.mdblog.blog.RenderCache;
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.http.ConditionalRequests;
+import me.mrletsplay.mdblog.http.ContentEncoding;
+import me.mrletsplay.mdblog.http.StaticResources;
 import me.mrletsplay.mdblog.markdown.MdParser;
 import me.mrletsplay.mdblog.markdown.MdRenderer;
+import me.mrletsplay.mdblog.metrics.Histogram;
+import me.mrletsplay.mdblog.metrics.Metrics;
 import me.mrletsplay.mdblog.rss.FeedConfig;
 import me.mrletsplay.mdblog.rss.RSSFeed;
 import me.mrletsplay.mdblog.rss.RSSItem;
 import me.mrletsplay.mdblog.rss.RSSResponse;
+import me.mrletsplay.mdblog.search.SearchDocument;
+import me.mrletsplay.mdblog.search.SearchIndex;
 import me.mrletsplay.mdblog.template.Template;
 import me.mrletsplay.mdblog.template.Templates;
+import me.mrletsplay.mdblog.util.Checksums;
+import me.mrletsplay.mdblog.util.LinkStyle;
 import me.mrletsplay.mdblog.util.PostPath;
 import me.mrletsplay.mdblog.util.TimeFormatter;
-import me.mrletsplay.mrcore.http.HttpUtils;
 import me.mrletsplay.simplehttpserver.dom.html.HtmlDocument;
 import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
 import me.mrletsplay.simplehttpserver.http.HttpRequestMethod;
 import me.mrletsplay.simplehttpserver.http.HttpStatusCodes;
 import me.mrletsplay.simplehttpserver.http.document.FileDocument;
+import me.mrletsplay.simplehttpserver.http.header.HttpServerHeader;
 import me.mrletsplay.simplehttpserver.http.request.HttpRequestContext;
 import me.mrletsplay.simplehttpserver.http.server.HttpServer;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
 
 public class MdBlog {
 
+	// The files directory can be moved, e.g. to run the benchmarks on a generated corpus
 	private static final Path
-		FILES_PATH = Path.of("files"),
-		POSTS_PATH = FILES_PATH.resolve("posts");
+		FILES_PATH = Path.of(System.getProperty("mdblog.files", "files")),
+		POSTS_PATH = FILES_PATH.resolve("posts"),
+		CACHE_PATH = FILES_PATH.resolve("cache");
 
 	private static final String
 		FEED_NAME = "feed.xml",
-		FEED_CONFIG_NAME = "feed.txt";
+		FEED_CONFIG_NAME = "feed.txt",
+		EXPORT_MANIFEST_NAME = ".mdblog-export";
 
+	private static final int SEARCH_RESULTS = 50;
+
+	private static MdBlogConfig config;
+	private static LinkStyle linkStyle;
+	private static ForkJoinPool renderPool;
+	private static RenderCache renderCache;
+	private static PostContentCache contentCache;
 	private static HttpServer server;
 	private static WatchService watchService;
-	private static List<WatchKey> watchedDirectories;
-	private static Map<PostPath, Post> posts;
+	private static Map<WatchKey, Path> watchedDirectories;
+	private static PostTree posts;
+	private static SearchIndex searchIndex;
 	private static Map<PostPath, Templates> indexTemplates;
-	private static Map<PostPath, FileDocument> globalResources;
+	private static Map<PostPath, Path> globalResources;
+	private static StaticResources resources;
 	private static Map<PostPath, FeedConfig> feedConfigs;
+	private static Set<PostPath> staleDirectories;
+
+	private static volatile BlogSnapshot snapshot;
 
 	private static Templates defaultTemplates;
 
 	public static void main(String[] args) throws IOException {
-		server = new HttpServer(HttpServer.newConfigurationBuilder()
-			.hostBindAll()
-			.port(3706)
-			.create());
-
-		server.getDocumentProvider().register(HttpRequestMethod.GET, "/", () -> createPostsIndex(PostPath.root()));
-
-		server.getDocumentProvider().registerPattern(HttpRequestMethod.GET, "/{path...}", () -> handleRequest(HttpRequestContext.getCurrentContext()));
+		Path exportPath = null;
+		if(args.length > 0 && args[0].equals("--export")) {
+			if(args.length != 2) {
+				System.err.println("Usage: --export <directory>");
+				return;
+			}
 
-		defaultTemplates = new Templates(null);
-		for(Template template : Template.values()) {
-			defaultTemplates.put(template, Files.readString(extract("template/" + template.getName() + ".md")));
+			exportPath = Path.of(args[1]);
+			if(overlaps(exportPath, FILES_PATH) || overlaps(exportPath, CACHE_PATH)) {
+				System.err.println("The export directory must not be, contain or be inside of " + FILES_PATH + " or " + CACHE_PATH);
+				return;
+			}
 		}
 
-		server.start();
+		// Exported posts use different links, so they are cached separately
+		init(exportPath != null ? LinkStyle.STATIC : LinkStyle.QUERY, exportPath != null ? CACHE_PATH.resolve("export") : CACHE_PATH);
 
-		Files.createDirectories(FILES_PATH);
-		Files.createDirectories(POSTS_PATH);
+		if(exportPath == null) {
+			server = new HttpServer(HttpServer.newConfigurationBuilder()
+				.hostBindAll()
+				.port(3706)
+				.create());
 
-		watchedDirectories = new ArrayList<>();
-		watchService = POSTS_PATH.getFileSystem().newWatchService();
+			server.getDocumentProvider().register(HttpRequestMethod.GET, "/", () -> timeRequest(() -> {
+				BlogSnapshot snapshot = getSnapshot();
+				if(snapshot == null) return Metrics.UNAVAILABLE_REQUEST_DURATION;
+				createPostsIndex(snapshot, PostPath.root());
+				return Metrics.INDEX_REQUEST_DURATION;
+			}));
 
-		posts = new HashMap<>();
-		indexTemplates = new HashMap<>();
-		globalResources = new HashMap<>();
-		feedConfigs = new HashMap<>();
+			server.getDocumentProvider().registerPattern(HttpRequestMethod.GET, "/{path...}", () -> timeRequest(() -> handleRequest(HttpRequestContext.getCurrentContext())));
 
-		extractAndRegister("style/base.css");
-		extractAndRegister("style/index.css");
-		extractAndRegister("style/post.css");
+			// Requests are answered with 503 until the initial build is published
+			server.start();
 
+			if(config.metricsPort() > 0) startMetricsServer();
+		}
+
+		long start = System.currentTimeMillis();
 		updateBlogs();
+		System.out.println("Loaded " + posts.size() + " posts in " + (System.currentTimeMillis() - start) + " ms");
+
+		if(exportPath != null) {
+			start = System.currentTimeMillis();
+			exportSite(snapshot, exportPath);
+			System.out.println("Exported blog to " + exportPath + " in " + (System.currentTimeMillis() - start) + " ms");
+			renderPool.shutdown();
+			return;
+		}
+
+		watchedDirectories = new HashMap<>();
+		watchService = POSTS_PATH.getFileSystem().newWatchService();
 		watchFolders();
 
 		while(true) {
 			try {
-				WatchKey key = watchService.poll(5, TimeUnit.MINUTES);
-				if(key != null) key.pollEvents();
+				// Relative dates are resolved when serving, so nothing needs to be rerendered unless files change
+				WatchKey key = watchService.take();
 
-				updateBlogs();
-				watchFolders();
+				// Changes are collected until nothing changed for the quiet period, but no longer than the max delay, and applied in a single rebuild
+				Set<Path> changedFiles = new HashSet<>();
+				boolean overflow = false;
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.watchMaxDelay());
+				while(key != null) {
+					overflow |= collectEvents(key, changedFiles);
 
-				if(key != null && !key.reset()) {
-					key.cancel();
-					watchedDirectories.remove(key);
+					long remaining = deadline - System.nanoTime();
+					if(remaining <= 0) break;
+					key = watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(config.watchQuietPeriod()), remaining), TimeUnit.NANOSECONDS);
+				}
+
+				if(overflow) {
+					updateBlogs();
+					watchFolders();
+				}else {
+					updateChangedFiles(changedFiles);
 				}
 			} catch (InterruptedException e) {
 				break;
@@ -112,150 +185,419 @@ public class MdBlog {
 		}
 	}
 
-	private static void createPostsIndex(PostPath path) {
-		String tag = HttpRequestContext.getCurrentContext().getRequestedPath().getQuery().getFirst("tag");
+	// Adds the changed files of the key to changedFiles, returns whether events were lost and everything needs to be rescanned
+	private static boolean collectEvents(WatchKey key, Set<Path> changedFiles) {
+		Path directory = watchedDirectories.get(key);
+		boolean overflow = directory == null;
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(overflow || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				overflow = true;
+				continue;
+			}
 
-		// Generate posts index
-		List<PostPath> allPaths = posts.keySet().stream()
-			.filter(p -> p.startsWith(path) && !p.equals(path))
-			.map(p -> path == null ? p : p.subPath(path.length()))
-			.toList();
+			changedFiles.add(directory.resolve((Path) event.context()));
+		}
 
-		List<PostPath> directories = allPaths.stream()
-			.filter(p -> p.length() > 1)
-			.map(p -> p.subPath(0, 1))
-			.distinct()
-			.toList();
+		if(!key.reset()) {
+			key.cancel();
+			watchedDirectories.remove(key);
+		}
 
-		List<PostPath> postsInDir = allPaths.stream()
-			.filter(p -> p.length() == 1)
-			.toList();
+		return overflow;
+	}
+
+	// Resets all state, the render cache is disabled if cachePath is null
+	static void init(LinkStyle links, Path cachePath) throws IOException {
+		linkStyle = links;
+		config = MdBlogConfig.load(Files.readString(extract("config.txt"), StandardCharsets.UTF_8));
+		if(renderPool != null) renderPool.shutdown();
+		renderPool = new ForkJoinPool(config.effectiveParallelism());
+
+		defaultTemplates = new Templates(null);
+		Instant defaultsModified = Instant.EPOCH;
+		for(Template template : Template.values()) {
+			Path file = extract("template/" + template.getName() + ".md");
+			defaultTemplates.put(template, Files.readString(file));
+			defaultsModified = getLatestModification(defaultsModified, file);
+		}
+		defaultTemplates.setLastModified(defaultsModified);
+
+		posts = PostTree.empty();
+		searchIndex = SearchIndex.empty();
+		indexTemplates = new HashMap<>();
+		globalResources = new HashMap<>();
+		feedConfigs = new HashMap<>();
+		staleDirectories = new HashSet<>();
+		snapshot = null;
+
+		Files.createDirectories(FILES_PATH);
+		Files.createDirectories(POSTS_PATH);
+		renderCache = cachePath != null ? new RenderCache(cachePath) : null;
+
+		// Exports need the content of every post anyway
+		contentCache = config.lazyRendering() && links == LinkStyle.QUERY ? new PostContentCache(config.postCacheSize() * 1024L * 1024L) : null;
+
+		extractAndRegister("style/base.css");
+		extractAndRegister("style/index.css");
+		extractAndRegister("style/post.css");
+		resources = StaticResources.empty();
+		loadResources();
+	}
+
+	static BlogSnapshot getPublishedSnapshot() {
+		return snapshot;
+	}
+
+	static Templates getDefaultTemplates() {
+		return defaultTemplates;
+	}
+
+	private static void createPostsIndex(BlogSnapshot snapshot, PostPath path) {
+		HttpRequestContext ctx = HttpRequestContext.getCurrentContext();
+		String query = ctx.getRequestedPath().getQuery().getFirst("q");
+		if(query != null && !query.isBlank() && config.search()) {
+			createSearchResults(snapshot, path, query);
+			return;
+		}
+
+		String tag = ctx.getRequestedPath().getQuery().getFirst("tag");
+
+		int page;
+		try {
+			page = Math.max(1, Integer.parseInt(ctx.getRequestedPath().getQuery().getFirst("page", "1")));
+		}catch(NumberFormatException e) {
+			page = 1;
+		}
+
+		PostTree node = snapshot.getPosts().getNode(path);
+		if(node == null) node = PostTree.empty();
+		List<PostEntry> entries = tag != null ? node.getPostsWithTag(tag) : node.getPostsNewestFirst();
+
+		if(page > getPageCount(entries.size())) {
+			server.getDocumentProvider().getNotFoundDocument().createContent();
+			return;
+		}
+
+		IndexKey key = new IndexKey(path, tag, page);
+		CachedDocument index = snapshot.getIndexCache().get(key);
+		if(index != null) {
+			Metrics.INDEX_CACHE_HITS.increment();
+		}else {
+			Metrics.INDEX_CACHE_MISSES.increment();
+
+			// The validators only depend on the inputs of the page, so revalidation is answered without rendering it
+			Templates templates = snapshot.getIndexTemplates().getOrDefault(path, defaultTemplates);
+			if(CachedDocument.isNotModified(getIndexVersion(snapshot, path, node, entries, tag, page), snapshot.getIndexLastModified(path), hasRelativeDates(templates))) return;
+
+			long start = System.nanoTime();
+			index = renderPostsIndex(snapshot, path, node, entries, tag, page);
+			Metrics.INDEX_RENDER_DURATION.recordSince(start);
+
+			// Only cache tags that exist to avoid filling the cache with arbitrary tags
+			if(tag == null || !entries.isEmpty()) {
+				snapshot.getIndexCache().put(key, index);
+			}
+		}
+
+		index.createContent();
+	}
+
+	static int getPageCount(int postCount) {
+		if(config.pageSize() <= 0) return 1;
+		return Math.max(1, (postCount + config.pageSize() - 1) / config.pageSize());
+	}
+
+	static CachedDocument renderPostsIndex(BlogSnapshot snapshot, PostPath path, PostTree node, List<PostEntry> allEntries, String tag, int page) {
+		// The entries are already sorted, so only the posts on the requested page need to be rendered
+		List<PostEntry> entries = allEntries;
+		if(config.pageSize() > 0) {
+			int start = (page - 1) * config.pageSize();
+			entries = allEntries.subList(start, Math.min(start + config.pageSize(), allEntries.size()));
+		}
 
 		String blogName = path.getName();
 
-		Templates templates = indexTemplates.getOrDefault(path, defaultTemplates);
+		Templates templates = snapshot.getIndexTemplates().getOrDefault(path, defaultTemplates);
 
 		HtmlDocument index = new HtmlDocument();
 		index.setTitle("Index of " + blogName);
 		index.setDescription("A blog hosted using MdBlog");
-		index.addStyleSheet("_/style/base.css");
-		index.addStyleSheet("_/style/index.css");
+		index.addStyleSheet(snapshot.getResources().getLink("style/base.css"));
+		index.addStyleSheet(snapshot.getResources().getLink("style/index.css"));
 
+		String pagination = createPagination(tag, page, getPageCount(allEntries.size()));
 		String indexMd = templates.render(Template.INDEX,
 			"name", blogName,
-			"sub_blogs", directories.stream()
-				.sorted(Comparator.comparing(p -> p.getName()))
+			"sub_blogs", node.getChildNames().stream()
 				.map(p -> {
 					HtmlElement name = new HtmlElement("a");
-					name.setAttribute("href", p.toString());
-					name.setText(p.getName());
+					name.setAttribute("href", linkStyle.getChildIndexLink(p));
+					name.setText(p);
 					return templates.render(Template.INDEX_SUB_BLOG,
 						"name", name.toString());
 				})
 				.collect(Collectors.joining("\n\n")),
-			"posts", postsInDir.stream()
-				.sorted(Comparator.<PostPath, Instant>comparing(p -> posts.get(path.concat(p)).getMetadata().date()).reversed())
-				.map(p -> {
-					Post post = posts.get(path.concat(p));
-					PostMetadata meta = post.getMetadata();
-					if(tag != null && !meta.tags().contains(tag)) return null;
-
-					HtmlElement title = new HtmlElement("a");
-					title.setAttribute("href", p.toString());
-					title.setText(meta.title());
-
-					return templates.render(Template.INDEX_POST,
-						"title", title.toString(),
-						"author", meta.author(),
-						"date", TimeFormatter.toDateOnly(meta.date()),
-						"date_time", TimeFormatter.toDateAndTime(meta.date()),
-						"date_relative", TimeFormatter.toRelativeTime(meta.date()),
-						"description", meta.description(),
-						"tags", meta.tags().stream()
-							.map(t -> {
-								HtmlElement link = new HtmlElement("a");
-								link.setText(t);
-								link.setAttribute("href", "?tag=" + HttpUtils.urlEncode(t));
-								return link.toString();
-							})
-							.collect(Collectors.joining(", ")));
-				})
-				.filter(Objects::nonNull)
-				.collect(Collectors.joining("\n\n")));
+			"posts", entries.stream()
+				.map(p -> renderIndexPost(templates, p.post(), linkStyle.getPostLink(p.path().getName())))
+				.collect(Collectors.joining("\n\n")),
+			"pagination", pagination);
+
+		// Templates from before pagination existed don't have the placeholder, the links are added at the end so all pages stay reachable
+		if(!pagination.isEmpty() && !templates.get(Template.INDEX).contains("{pagination}")) indexMd += "\n\n" + pagination;
 
 		index.getBodyNode().appendChild(new MdRenderer().render(MdParser.parse(indexMd)));
-		index.createContent();
+		return CachedDocument.of(index, snapshot.getIndexLastModified(path), getIndexVersion(snapshot, path, node, allEntries, tag, page));
+	}
+
+	private static String getIndexVersion(BlogSnapshot snapshot, PostPath path, PostTree node, List<PostEntry> allEntries, String tag, int page) {
+		Templates templates = snapshot.getIndexTemplates().getOrDefault(path, defaultTemplates);
+		StringBuilder inputs = new StringBuilder();
+		inputs.append(templates.getChecksum()).append('\n')
+			.append(snapshot.getResources().getChecksum()).append('\n')
+			.append(path).append('\n')
+			.append(tag).append('\n')
+			.append(page).append('/').append(getPageCount(allEntries.size())).append('\n');
+		for(String child : node.getChildNames()) inputs.append(child).append('\n');
+
+		// The posts on the page, their versions change with their metadata
+		int start = config.pageSize() > 0 ? (page - 1) * config.pageSize() : 0;
+		int end = config.pageSize() > 0 ? Math.min(start + config.pageSize(), allEntries.size()) : allEntries.size();
+		for(PostEntry entry : allEntries.subList(start, end)) {
+			inputs.append(entry.path()).append(' ').append(entry.post().getVersion()).append('\n');
+		}
+		return Checksums.checksum(inputs.toString());
+	}
+
+	private static boolean hasRelativeDates(Templates templates) {
+		return templates.get(Template.INDEX).contains("{date_relative}") || templates.get(Template.INDEX_POST).contains("{date_relative}");
+	}
+
+	private static String renderIndexPost(Templates templates, Post post, String href) {
+		PostMetadata meta = post.getMetadata();
+
+		HtmlElement title = new HtmlElement("a");
+		title.setAttribute("href", href);
+		title.setText(meta.title());
+
+		return templates.render(Template.INDEX_POST,
+			"title", title.toString(),
+			"author", meta.author(),
+			"date", TimeFormatter.toDateOnly(meta.date()),
+			"date_time", TimeFormatter.toDateAndTime(meta.date()),
+			"date_relative", TimeFormatter.toRelativeTimeMarker(meta.date()),
+			"description", meta.description(),
+			"tags", meta.tags().stream()
+				.map(t -> {
+					HtmlElement link = new HtmlElement("a");
+					link.setText(t);
+					link.setAttribute("href", linkStyle.getIndexLink(t, 1));
+					return link.toString();
+				})
+				.collect(Collectors.joining(", ")));
 	}
 
-	private static void handleRequest(HttpRequestContext ctx) {
+	private static void createSearchResults(BlogSnapshot snapshot, PostPath path, String query) {
+		long start = System.nanoTime();
+		List<PostPath> results = snapshot.getSearchIndex().search(query, path, SEARCH_RESULTS);
+		Metrics.SEARCH_DURATION.recordSince(start);
+
+		Templates templates = snapshot.getIndexTemplates().getOrDefault(path, defaultTemplates);
+
+		HtmlDocument document = new HtmlDocument();
+		document.setTitle("Search results for " + query);
+		document.setDescription("A blog hosted using MdBlog");
+		document.addStyleSheet(snapshot.getResources().getLink("style/base.css"));
+		document.addStyleSheet(snapshot.getResources().getLink("style/index.css"));
+
+		// Results can be in sub-blogs, so they are linked relative to the searched directory
+		String resultsMd = results.stream()
+			.filter(p -> snapshot.getPosts().getPost(p) != null)
+			.map(p -> renderIndexPost(templates, snapshot.getPosts().getPost(p), linkStyle.getPostLink(p.toString(path.length()))))
+			.collect(Collectors.joining("\n\n"));
+
+		String searchMd = templates.render(Template.SEARCH,
+			"query", MdParser.escape(query),
+			"results", resultsMd.isEmpty() ? "No posts found" : resultsMd);
+
+		document.getBodyNode().appendChild(new MdRenderer().render(MdParser.parse(searchMd)));
+
+		// Results aren't cached, so compressing them isn't worth it
+		new CachedDocument(MimeType.HTML, document.toString().getBytes(StandardCharsets.UTF_8), Map.of(), Instant.now()).createContent();
+	}
+
+	private static String createPagination(String tag, int page, int pageCount) {
+		List<String> links = new ArrayList<>(2);
+		if(page > 1) links.add(createPageLink(linkStyle.getIndexLink(tag, page - 1), "Newer posts"));
+		if(page < pageCount) links.add(createPageLink(linkStyle.getIndexLink(tag, page + 1), "Older posts"));
+		return String.join(" | ", links);
+	}
+
+	private static String createPageLink(String href, String text) {
+		HtmlElement link = new HtmlElement("a");
+		link.setAttribute("href", href);
+		link.setText(text);
+		return link.toString();
+	}
+
+	static List<PostEntry> getFeedEntries(PostTree blog, boolean recursive, String tag) {
+		if(blog == null) return Collections.emptyList();
+		return blog.getNewestPosts(tag, recursive, config.feedItems());
+	}
+
+	static CachedDocument createFeed(PostPath blogPath, FeedConfig config, List<PostEntry> entries) {
+		RSSFeed feed = new RSSFeed(config.title(), config.link(), config.description());
+		for(PostEntry entry : entries) {
+			PostMetadata meta = entry.post().getMetadata();
+			feed.addItem(new RSSItem(meta.date(), meta.title(), meta.author(), config.link() + "/" + entry.path().toString(blogPath.length()), meta.description()));
+		}
+
+		RSSResponse response = new RSSResponse(feed);
+		return new CachedDocument(response.getContentType(), response.getContent(), feed.getLastModified());
+	}
+
+	private static void startMetricsServer() {
+		Metrics.REGISTRY.gauge("mdblog_posts", "Number of loaded posts", () -> {
+			BlogSnapshot current = MdBlog.snapshot;
+			return current == null ? 0 : current.getPosts().size();
+		});
+
+		if(contentCache != null) {
+			Metrics.REGISTRY.gauge("mdblog_post_content_cache_bytes", "Size of the lazily rendered posts in the content cache", contentCache::getSize);
+		}
+
+		HttpServer metricsServer = new HttpServer(HttpServer.newConfigurationBuilder()
+			.host(config.metricsHost())
+			.port(config.metricsPort())
+			.create());
+
+		metricsServer.getDocumentProvider().register(HttpRequestMethod.GET, "/metrics", () -> {
+			HttpRequestContext.getCurrentContext().getServerHeader().setContent(MimeType.of("text/plain; version=0.0.4"), Metrics.REGISTRY.toPrometheusText().getBytes(StandardCharsets.UTF_8));
+		});
+
+		metricsServer.start();
+		System.out.println("Serving metrics on " + config.metricsHost() + ":" + config.metricsPort());
+	}
+
+	private static BlogSnapshot getSnapshot() {
+		BlogSnapshot snapshot = MdBlog.snapshot;
+		if(snapshot == null) {
+			HttpServerHeader header = HttpRequestContext.getCurrentContext().getServerHeader();
+			header.setStatusCode(HttpStatusCodes.SERVICE_UNAVAILABLE_503);
+			header.getFields().set("Retry-After", "5");
+			header.setContent(MimeType.of("text/plain"), "The blog is starting, please try again later".getBytes(StandardCharsets.UTF_8));
+		}
+
+		return snapshot;
+	}
+
+	private static void timeRequest(Supplier<Histogram> handler) {
+		long start = System.nanoTime();
+		handler.get().recordSince(start);
+	}
+
+	// Returns the histogram of the route, used for the metrics
+	private static Histogram handleRequest(HttpRequestContext ctx) {
+		BlogSnapshot snapshot = getSnapshot();
+		if(snapshot == null) return Metrics.UNAVAILABLE_REQUEST_DURATION;
+		PostTree posts = snapshot.getPosts();
+
 		String rawPath = ctx.getPathParameters().get("path");
 		PostPath path = PostPath.parse(rawPath);
-		int index = 0;
-		while(index < path.length() - 1 && !path.getSegments()[index].equals("_")) index++;
-		if(index < path.length() - 1) {
+		// Resources can be requested relative to any page, the first "_" directory in the path starts the resource path
+		int index = -1;
+		for(PostPath parent = path.getParent(); parent.length() > 0; parent = parent.getParent()) {
+			if(parent.getName().equals("_")) index = parent.length() - 1;
+		}
+		if(index != -1) {
 			PostPath resourcePath = path.subPath(index + 1);
-			FileDocument resource = globalResources.get(resourcePath);
+			CachedDocument resource = snapshot.getResources().get(resourcePath);
 			if(resource != null) {
+				// Fingerprinted paths change with the content, the original paths need to be revalidated
+				ctx.getServerHeader().getFields().set("Cache-Control", snapshot.getResources().isFingerprinted(resourcePath) ? "public, max-age=31536000, immutable" : "no-cache");
 				resource.createContent();
+				return Metrics.RESOURCE_REQUEST_DURATION;
 			}else {
 				server.getDocumentProvider().getNotFoundDocument().createContent();
+				return Metrics.NOT_FOUND_REQUEST_DURATION;
 			}
-			return;
 		}
 
 		if(path.getName().equals(FEED_NAME)) {
 			PostPath blogPath = path.getParent();
-			FeedConfig config = feedConfigs.get(blogPath);
+			FeedConfig config = snapshot.getFeedConfigs().get(blogPath);
 			if(config != null) {
 				boolean recursive = ctx.getRequestedPath().getQuery().getFirst("recursive", "false").equals("true");
+				String tag = ctx.getRequestedPath().getQuery().getFirst("tag");
+				PostTree blog = posts.getNode(blogPath);
 
-				RSSFeed feed = new RSSFeed(config.title(), config.link(), config.description());
+				FeedKey key = new FeedKey(blogPath, recursive, tag);
+				CachedDocument feed = snapshot.getFeedCache().get(key);
+				if(feed != null) {
+					Metrics.FEED_CACHE_HITS.increment();
+				}else {
+					Metrics.FEED_CACHE_MISSES.increment();
+					List<PostEntry> entries = getFeedEntries(blog, recursive, tag);
+					feed = createFeed(blogPath, config, entries);
 
-				posts.entrySet().stream()
-					.filter(e -> e.getKey().startsWith(blogPath) && (recursive || e.getKey().length() == path.length()))
-					.forEach(e -> {
-						Post p = e.getValue();
-						feed.addItem(new RSSItem(p.getMetadata().date(), p.getMetadata().title(), p.getMetadata().author(), config.link() + "/" + e.getKey().subPath(blogPath.length()), p.getMetadata().description()));
-					});
-				ctx.respond(HttpStatusCodes.OK_200, new RSSResponse(feed));
-				return;
+					// Only cache tags that exist to avoid filling the cache with arbitrary tags
+					if(tag == null || !entries.isEmpty()) {
+						snapshot.getFeedCache().put(key, feed);
+					}
+				}
+
+				feed.createContent();
+				return Metrics.FEED_REQUEST_DURATION;
 			}
 		}
 
-		Post post = posts.get(path);
+		Post post = posts.getPost(path);
 
 		if(post != null) {
 			if(rawPath.endsWith("/")) {
-				ctx.redirect("../" + path.subPath(path.length() - 1));
+				ctx.redirect("../" + path.getName());
 			}
 
-			post.getContent().createContent();
-			return;
+			try {
+				if(post.isNotModified()) return Metrics.POST_REQUEST_DURATION;
+				post.getContent().createContent();
+			}catch(UncheckedIOException e) {
+				// The post was removed or became invalid after it was loaded
+				e.printStackTrace();
+				server.getDocumentProvider().getNotFoundDocument().createContent();
+				return Metrics.NOT_FOUND_REQUEST_DURATION;
+			}
+			return Metrics.POST_REQUEST_DURATION;
 		}
 
-		if(posts.keySet().stream().anyMatch(p -> p.startsWith(path))) {
+		if(posts.getNode(path) != null) {
 			if(!rawPath.endsWith("/")) {
-				ctx.redirect(path.subPath(path.length() - 1).toString() + "/");
-				return;
+				ctx.redirect(path.getName() + "/");
+				return Metrics.REDIRECT_REQUEST_DURATION;
 			}
 
-			createPostsIndex(path);
-			return;
+			createPostsIndex(snapshot, path);
+			return Metrics.INDEX_REQUEST_DURATION;
 		}
 
 		Path resolved = POSTS_PATH.resolve(path.toNioPath()).normalize();
 		if(!resolved.startsWith(POSTS_PATH)) {
 			server.getDocumentProvider().getNotFoundDocument().createContent();
-			return;
+			return Metrics.NOT_FOUND_REQUEST_DURATION;
 		}
 
 		if(!Files.isRegularFile(resolved) || !Files.isReadable(resolved)) {
 			server.getDocumentProvider().getNotFoundDocument().createContent();
-			return;
+			return Metrics.NOT_FOUND_REQUEST_DURATION;
 		}
 
+		serveFile(ctx, resolved);
+		return Metrics.FILE_REQUEST_DURATION;
+	}
+
+	private static void serveFile(HttpRequestContext ctx, Path file) {
 		try {
-			new FileDocument(resolved).createContent();
+			if(ConditionalRequests.isNotModified(file)) return;
+			new FileDocument(file).createContent();
 		} catch (IOException e) {
 			e.printStackTrace();
 			ctx.setException(e);
@@ -263,6 +605,157 @@ public class MdBlog {
 		}
 	}
 
+	private static void exportSite(BlogSnapshot snapshot, Path exportPath) throws IOException {
+		Map<PostPath, PostTree> nodes = new HashMap<>();
+		collectNodes(PostPath.root(), snapshot.getPosts(), nodes);
+
+		// Every file that belongs to the export is recorded, files of previous exports that aren't written again are deleted
+		Set<Path> outputs = ConcurrentHashMap.newKeySet();
+
+		List<ExportTask> tasks = new ArrayList<>();
+		snapshot.getPosts().forEachPost((path, post) -> tasks.add(() -> exportDocument(resolveExportPath(exportPath, path.getParent()).resolve(LinkStyle.getPostFileName(path.getName())), post.getContent(), outputs)));
+
+		nodes.forEach((path, node) -> {
+			Path directory = resolveExportPath(exportPath, path);
+
+			// Resources are referenced relative to every page, so every directory needs a copy
+			snapshot.getResources().getDocuments().forEach((resourcePath, document) -> {
+				tasks.add(() -> exportDocument(resolveExportPath(directory.resolve("_"), resourcePath), document, outputs));
+			});
+
+			List<String> tags = new ArrayList<>(node.getTags());
+			tags.add(null);
+			for(String tag : tags) {
+				List<PostEntry> entries = tag != null ? node.getPostsWithTag(tag) : node.getPostsNewestFirst();
+				for(int page = 1; page <= getPageCount(entries.size()); page++) {
+					int p = page;
+					tasks.add(() -> exportDocument(directory.resolve(LinkStyle.getIndexFileName(tag, p)), renderPostsIndex(snapshot, path, node, entries, tag, p), outputs));
+				}
+			}
+
+			FeedConfig feedConfig = snapshot.getFeedConfigs().get(path);
+			if(feedConfig != null) {
+				tasks.add(() -> exportDocument(directory.resolve(FEED_NAME), createFeed(path, feedConfig, getFeedEntries(node, false, null)), outputs));
+			}
+		});
+
+		// Other files in the posts directory (e.g. images) are copied as they are
+		try(Stream<Path> files = Files.walk(POSTS_PATH)) {
+			files.filter(Files::isRegularFile)
+				.filter(f -> !f.getFileName().toString().endsWith(Post.FILE_EXTENSION) && !f.getFileName().toString().equals(FEED_CONFIG_NAME))
+				.forEach(f -> tasks.add(() -> exportFile(resolveExportPath(exportPath, PostPath.of(POSTS_PATH.relativize(f))), f, outputs)));
+		}
+
+		AtomicInteger written = new AtomicInteger();
+		renderPool.submit(() -> tasks.parallelStream().forEach(task -> {
+			try {
+				if(task.run()) written.incrementAndGet();
+			}catch(IOException e) {
+				e.printStackTrace();
+			}
+		})).join();
+
+		System.out.println("Wrote " + written.get() + " of " + tasks.size() + " files, the others were unchanged");
+		System.out.println("Deleted " + deleteStaleOutputs(exportPath, outputs) + " files of removed posts and resources");
+	}
+
+	// Only files listed in the manifest of the previous export are deleted, other files in the directory are never touched
+	private static int deleteStaleOutputs(Path exportPath, Set<Path> outputs) throws IOException {
+		Path manifest = exportPath.resolve(EXPORT_MANIFEST_NAME);
+
+		int deleted = 0;
+		if(Files.isRegularFile(manifest)) {
+			for(String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+				// Lines that would point outside of the export directory are ignored
+				Path relativePath = Path.of(line);
+				if(line.isEmpty() || relativePath.isAbsolute() || relativePath.startsWith("..") || !relativePath.normalize().equals(relativePath)) continue;
+
+				Path file = exportPath.resolve(relativePath);
+				if(outputs.contains(file)) continue;
+				if(!Files.deleteIfExists(file)) continue;
+				deleted++;
+
+				// Directories that only contained removed outputs are deleted as well
+				Path directory = file.getParent();
+				while(!directory.equals(exportPath) && isEmptyDirectory(directory)) {
+					Files.delete(directory);
+					directory = directory.getParent();
+				}
+			}
+		}
+
+		List<String> lines = outputs.stream()
+			.map(f -> exportPath.relativize(f).toString())
+			.sorted()
+			.toList();
+		Files.write(manifest, lines, StandardCharsets.UTF_8);
+		return deleted;
+	}
+
+	private static boolean isEmptyDirectory(Path directory) throws IOException {
+		if(!Files.isDirectory(directory)) return false;
+		try(Stream<Path> children = Files.list(directory)) {
+			return children.findAny().isEmpty();
+		}
+	}
+
+	private static boolean overlaps(Path path, Path other) {
+		Path a = path.toAbsolutePath().normalize();
+		Path b = other.toAbsolutePath().normalize();
+		return a.startsWith(b) || b.startsWith(a);
+	}
+
+	private static void collectNodes(PostPath path, PostTree node, Map<PostPath, PostTree> nodes) {
+		nodes.put(path, node);
+		node.getChildren().forEach((name, child) -> collectNodes(path.child(name), child, nodes));
+	}
+
+	private static Path resolveExportPath(Path exportPath, PostPath path) {
+		Path resolved = exportPath;
+		for(String segment : path.getSegments()) resolved = resolved.resolve(segment);
+		return resolved;
+	}
+
+	private static boolean exportDocument(Path file, CachedDocument unresolvedDocument, Set<Path> outputs) throws IOException {
+		// Exported files are static, so relative dates are resolved as of the export
+		CachedDocument document = unresolvedDocument.resolve(LocalDate.now());
+		Path gzipFile = file.resolveSibling(file.getFileName() + ".gz");
+		byte[] gzipContent = document.getContent(ContentEncoding.GZIP);
+
+		outputs.add(file);
+		boolean changed = writeIfChanged(file, document.getContent());
+		if(gzipContent != null) {
+			outputs.add(gzipFile);
+			changed |= writeIfChanged(gzipFile, gzipContent);
+		}else {
+			// The content doesn't compress, so an outdated precompressed file must not be served instead
+			changed |= Files.deleteIfExists(gzipFile);
+		}
+		return changed;
+	}
+
+	private static boolean exportFile(Path file, Path source, Set<Path> outputs) throws IOException {
+		outputs.add(file);
+		if(Files.isRegularFile(file)
+			&& Files.size(file) == Files.size(source)
+			&& Files.getLastModifiedTime(file).equals(Files.getLastModifiedTime(source))) return false;
+
+		Files.createDirectories(file.getParent());
+		Files.copy(source, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+		return true;
+	}
+
+	// Outputs are only rewritten if their content changed, so repeated exports keep the modification times of unchanged files
+	private static boolean writeIfChanged(Path file, byte[] content) throws IOException {
+		if(Files.isRegularFile(file)
+			&& Files.size(file) == content.length
+			&& Arrays.equals(Files.readAllBytes(file), content)) return false;
+
+		Files.createDirectories(file.getParent());
+		Files.write(file, content);
+		return true;
+	}
+
 	private static Path extract(String path) throws IOException {
 		Path filePath = FILES_PATH.resolve(path);
 		if(!Files.exists(filePath)) {
@@ -274,69 +767,302 @@ public class MdBlog {
 	}
 
 	private static void extractAndRegister(String path) throws IOException {
-		globalResources.put(PostPath.parse(path), new FileDocument(extract(path)));
+		globalResources.put(PostPath.parse(path), extract(path));
 	}
 
-	private static void updateBlogs() throws IOException {
+	// Keeps the previous resources if they can't be read, e.g. while a file is being written
+	private static boolean loadResources() {
+		try {
+			StaticResources newResources = StaticResources.load(globalResources);
+			if(newResources.getChecksum().equals(resources.getChecksum())) return false;
+			resources = newResources;
+			return true;
+		}catch(IOException e) {
+			System.err.println("Failed to load resources");
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	static void updateBlogs() throws IOException {
+		long start = System.nanoTime();
 		indexTemplates.clear();
 		feedConfigs.clear();
 
-		Files.walk(POSTS_PATH)
-			.filter(Files::isRegularFile)
-			.filter(f -> f.getFileName().toString().endsWith(Post.FILE_EXTENSION))
-			.filter(f -> posts.values().stream().noneMatch(p -> p.getFilePath().equals(f)))
-			.forEach(f -> {
-				try {
-					String fullPostName = f.getFileName().toString();
-					String postName = fullPostName.substring(0, fullPostName.length() - Post.FILE_EXTENSION.length());
-					PostPath path = PostPath.of(POSTS_PATH.relativize(f).getParent(), postName);
-
-					Template template = Arrays.stream(Template.values())
-						.filter(t -> t.getName().equals(postName))
-						.findFirst().orElse(null);
-					if(template != null) {
-						// File is an index template, don't parse it as a post
-						indexTemplates.computeIfAbsent(path.getParent(), p -> new Templates(defaultTemplates)).put(template, Files.readString(f, StandardCharsets.UTF_8));
+		Map<PostPath, Path> changedPosts = getPostFiles();
+		Set<Path> templateDirectories = new HashSet<>();
+		try(Stream<Path> files = Files.walk(POSTS_PATH)) {
+			files.filter(Files::isRegularFile).forEach(f -> loadFile(f, changedPosts, templateDirectories));
+		}
+
+		templateDirectories.forEach(MdBlog::loadTemplates);
+		loadResources();
+		updatePosts(changedPosts);
+		publishSnapshot(true);
+
+		// Entries that aren't used by any post anymore are only removed after a full rescan
+		List<Post> allPosts = new ArrayList<>(posts.size());
+		posts.forEachPost((path, post) -> allPosts.add(post));
+		if(renderCache != null) renderCache.retain(allPosts);
+
+		Metrics.FULL_REBUILD_DURATION.recordSince(start);
+	}
+
+	private static void updateChangedFiles(Set<Path> changedFiles) throws IOException {
+		long start = System.nanoTime();
+		Map<PostPath, Path> changedPosts = new HashMap<>();
+		Set<Path> templateDirectories = new HashSet<>();
+		boolean resourcesChanged = false;
+
+		for(Path file : changedFiles) {
+			if(!file.startsWith(POSTS_PATH)) {
+				// Everything outside of the posts directory that is watched is a resource
+				resourcesChanged |= globalResources.containsValue(file);
+				continue;
+			}
+
+			if(!Files.exists(file)) {
+				// File or directory was deleted, remove everything that was loaded from it
+				PostPath path = PostPath.of(POSTS_PATH.relativize(file));
+				Map<PostPath, Post> removedPosts = new HashMap<>();
+				Map<PostPath, SearchDocument> removedDocuments = new HashMap<>();
+				posts.forEachPost((p, post) -> {
+					if(!post.getFilePath().startsWith(file)) return;
+					if(contentCache != null) contentCache.invalidate(post);
+					removedPosts.put(p, null);
+					removedDocuments.put(p, null);
+				});
+				posts = posts.withChanges(removedPosts);
+				searchIndex = searchIndex.withChanges(removedDocuments);
+				removedPosts.keySet().forEach(MdBlog::invalidateIndexes);
+				indexTemplates.keySet().removeIf(p -> p.startsWith(path));
+				feedConfigs.keySet().removeIf(p -> p.startsWith(path));
+
+				String fileName = file.getFileName().toString();
+				if(fileName.equals(FEED_CONFIG_NAME)) {
+					feedConfigs.remove(path.getParent());
+					staleDirectories.add(path.getParent());
+				}
+				if(getTemplate(fileName) != null) templateDirectories.add(file.getParent());
+				continue;
+			}
+
+			// Already watched directories report their own changes
+			if(Files.isDirectory(file) && watchedDirectories.containsValue(file)) continue;
+
+			try(Stream<Path> files = Files.walk(file)) {
+				files.forEach(f -> {
+					if(Files.isDirectory(f)) {
+						watchFolder(f);
 						return;
 					}
 
-					posts.put(path, new Post(f));
-				} catch (IOException e) {}
-			});
+					loadFile(f, changedPosts, templateDirectories);
+				});
+			}
+		}
 
-		Files.walk(POSTS_PATH)
-			.filter(Files::isRegularFile)
-			.filter(f -> f.getFileName().toString().equals(FEED_CONFIG_NAME))
-			.forEach(f -> {
-				try {
-					PostPath path = PostPath.of(POSTS_PATH.relativize(f).getParent());
-					String configString = Files.readString(f, StandardCharsets.UTF_8);
-					FeedConfig config = FeedConfig.load(configString);
-					feedConfigs.put(path, config);
-				}catch(IOException e) {}
-			});
+		for(Path directory : templateDirectories) {
+			PostPath path = loadTemplates(directory);
+			staleDirectories.add(path);
+			PostTree node = posts.getNode(path);
+			if(node != null) node.getPosts().forEach((name, post) -> changedPosts.put(path.child(name), post.getFilePath()));
+		}
+
+		// Every page links to the resources, so all of them need to be rendered again if their fingerprints changed
+		boolean linksChanged = resourcesChanged && loadResources();
+		if(linksChanged) changedPosts.putAll(getPostFiles());
+
+		updatePosts(changedPosts);
+		publishSnapshot(linksChanged);
+
+		Metrics.INCREMENTAL_REBUILD_DURATION.recordSince(start);
+	}
+
+	private static void loadFile(Path file, Map<PostPath, Path> changedPosts, Set<Path> templateDirectories) {
+		if(!Files.isRegularFile(file)) return;
+
+		String fileName = file.getFileName().toString();
+		PostPath directoryPath = PostPath.of(POSTS_PATH.relativize(file).getParent());
+
+		if(fileName.equals(FEED_CONFIG_NAME)) {
+			try {
+				String configString = Files.readString(file, StandardCharsets.UTF_8);
+				feedConfigs.put(directoryPath, FeedConfig.load(configString));
+			}catch(IOException e) {
+				feedConfigs.remove(directoryPath);
+			}
+			staleDirectories.add(directoryPath);
+			return;
+		}
+
+		if(!fileName.endsWith(Post.FILE_EXTENSION)) return;
+
+		if(getTemplate(fileName) != null) {
+			// File is an index template, don't parse it as a post
+			templateDirectories.add(file.getParent());
+			return;
+		}
+
+		String postName = fileName.substring(0, fileName.length() - Post.FILE_EXTENSION.length());
+		changedPosts.put(PostPath.of(POSTS_PATH.relativize(file).getParent(), postName), file);
+	}
+
+	private static PostPath loadTemplates(Path directory) {
+		PostPath path = PostPath.of(POSTS_PATH.relativize(directory));
+
+		Templates templates = new Templates(defaultTemplates);
+		boolean hasTemplates = false;
+
+		// Deleting a template changes the modification time of the directory, so falling back to the default counts as a modification as well
+		Instant lastModified = getLatestModification(Instant.EPOCH, directory);
+		for(Template template : Template.values()) {
+			Path file = directory.resolve(template.getName() + Post.FILE_EXTENSION);
+			if(!Files.isRegularFile(file)) continue;
+
+			try {
+				templates.put(template, Files.readString(file, StandardCharsets.UTF_8));
+				lastModified = getLatestModification(lastModified, file);
+				hasTemplates = true;
+			}catch(IOException e) {}
+		}
+		templates.setLastModified(lastModified);
 
-		Iterator<Map.Entry<PostPath, Post>> it = posts.entrySet().iterator();
-		while(it.hasNext()) {
-			Map.Entry<PostPath, Post> en = it.next();
-			PostPath path = en.getKey();
-			Post p = en.getValue();
+		if(hasTemplates) {
+			indexTemplates.put(path, templates);
+		}else {
+			indexTemplates.remove(path);
+		}
+
+		return path;
+	}
+
+	private static Instant getLatestModification(Instant lastModified, Path file) {
+		try {
+			Instant fileModified = Files.getLastModifiedTime(file).toInstant();
+			return fileModified.isAfter(lastModified) ? fileModified : lastModified;
+		}catch(IOException e) {
+			return lastModified;
+		}
+	}
 
+	private static Template getTemplate(String fileName) {
+		return Arrays.stream(Template.values())
+			.filter(t -> (t.getName() + Post.FILE_EXTENSION).equals(fileName))
+			.findFirst().orElse(null);
+	}
+
+	private static Map<PostPath, Path> getPostFiles() {
+		Map<PostPath, Path> files = new HashMap<>();
+		posts.forEachPost((path, post) -> files.put(path, post.getFilePath()));
+		return files;
+	}
+
+	private static void updatePosts(Map<PostPath, Path> postFiles) {
+		Map<PostPath, Post> updatedPosts = new ConcurrentHashMap<>();
+		Map<PostPath, SearchDocument> searchDocuments = new ConcurrentHashMap<>();
+		Set<PostPath> removedPosts = ConcurrentHashMap.newKeySet();
+
+		// Posts are rendered in parallel, the maps are only read until all posts are done
+		renderPool.submit(() -> postFiles.entrySet().parallelStream().forEach(e -> {
+			PostPath path = e.getKey();
+			Post post = posts.getPost(path);
 			Templates templates = indexTemplates.getOrDefault(path.getParent(), defaultTemplates);
-			if(!p.update(templates)) it.remove();
+
+			try {
+				// Without lazy loading, the file is read once for both rendering and indexing. Lazily loaded posts read their body from the offset found while scanning, without rendering it
+				byte[] postData = contentCache == null ? Files.readAllBytes(e.getValue()) : null;
+				Post updated = post != null ? post.update(postData, templates, resources, linkStyle, renderCache, contentCache) : Post.load(e.getValue(), postData, templates, resources, linkStyle, renderCache, contentCache);
+
+				// Posts that were only rerendered don't need to be indexed again
+				if(config.search() && (post == null || !updated.getChecksum().equals(post.getChecksum()) || !updated.getMetadata().equals(post.getMetadata()))) {
+					searchDocuments.put(path, SearchDocument.of(updated.getMetadata(), postData != null ? Post.getBody(postData) : updated.readBody()));
+				}
+
+				updatedPosts.put(path, updated);
+			}catch(IOException ex) {
+				removedPosts.add(path);
+			}
+		})).join();
+
+		Map<PostPath, Post> changes = new HashMap<>();
+		Map<PostPath, SearchDocument> searchChanges = new HashMap<>(searchDocuments);
+		for(PostPath path : removedPosts) {
+			Post post = posts.getPost(path);
+			if(post == null) continue;
+			if(contentCache != null) contentCache.invalidate(post);
+			changes.put(path, null);
+			searchChanges.put(path, null);
+			invalidateIndexes(path);
 		}
+
+		updatedPosts.forEach((path, updated) -> {
+			Post post = posts.getPost(path);
+			if(updated == post) return;
+			if(post != null && contentCache != null) contentCache.invalidate(post);
+			changes.put(path, updated);
+			if(post == null || !updated.getMetadata().equals(post.getMetadata())) invalidateIndexes(path);
+		});
+
+		posts = posts.withChanges(changes);
+		searchIndex = searchIndex.withChanges(searchChanges);
 	}
 
-	private static void watchFolders() throws IOException {
-		Files.walk(POSTS_PATH)
-			.filter(Files::isDirectory)
-			.filter(d -> watchedDirectories.stream().noneMatch(w -> w.watchable().equals(d)))
-			.forEach(d -> {
-				try {
-					System.out.println("Watching " + d);
-					watchedDirectories.add(d.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.OVERFLOW));
-				} catch (IOException e) {}
+	private static void invalidateIndexes(PostPath postPath) {
+		PostPath path = postPath;
+		do {
+			path = path.getParent();
+			staleDirectories.add(path);
+		}while(path.length() > 0);
+	}
+
+	private static void publishSnapshot(boolean clearCaches) {
+		Map<IndexKey, CachedDocument> indexCache = new ConcurrentHashMap<>();
+		Map<FeedKey, CachedDocument> feedCache = new ConcurrentHashMap<>();
+		if(!clearCaches && snapshot != null) {
+			snapshot.getIndexCache().forEach((key, index) -> {
+				if(!staleDirectories.contains(key.path())) indexCache.put(key, index);
+			});
+			snapshot.getFeedCache().forEach((key, feed) -> {
+				if(!staleDirectories.contains(key.path())) feedCache.put(key, feed);
 			});
+		}
+
+		// Indexes count as modified when they are invalidated, which stays the same for every render until the next change
+		Instant now = Instant.now();
+		Map<PostPath, Instant> indexesModified = new HashMap<>();
+		Instant allIndexesModified = now;
+		if(!clearCaches && snapshot != null) {
+			indexesModified.putAll(snapshot.getIndexesModified());
+			allIndexesModified = snapshot.getAllIndexesModified();
+			staleDirectories.forEach(p -> indexesModified.put(p, now));
+		}
+
+		staleDirectories.clear();
+		snapshot = new BlogSnapshot(posts, searchIndex, indexTemplates, feedConfigs, resources, indexCache, feedCache, indexesModified, allIndexesModified);
+	}
+
+	private static void watchFolders() throws IOException {
+		try(Stream<Path> files = Files.walk(POSTS_PATH)) {
+			files.filter(Files::isDirectory).forEach(MdBlog::watchFolder);
+		}
+
+		globalResources.values().forEach(f -> watchFolder(f.getParent()));
+	}
+
+	private static void watchFolder(Path directory) {
+		if(watchedDirectories.containsValue(directory)) return;
+
+		try {
+			System.out.println("Watching " + directory);
+			watchedDirectories.put(directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.OVERFLOW), directory);
+		} catch (IOException e) {}
+	}
+
+	private static interface ExportTask {
+
+		public boolean run() throws IOException;
+
 	}
 
 }
@@ -0,0 +1,53 @@
+package me.mrletsplay.mdblog;
+
+public record MdBlogConfig(int parallelism, int pageSize, int feedItems, String metricsHost, int metricsPort, int watchQuietPeriod, int watchMaxDelay, boolean lazyRendering, int postCacheSize, boolean search) {
+
+	public int effectiveParallelism() {
+		return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	public static MdBlogConfig load(String configString) {
+		int parallelism = 0;
+		int pageSize = 20;
+		int feedItems = 50;
+		String metricsHost = "127.0.0.1";
+		int metricsPort = 0;
+		int watchQuietPeriod = 500;
+		int watchMaxDelay = 5000;
+		boolean lazyRendering = false;
+		int postCacheSize = 64;
+		boolean search = true;
+
+		for(String line : configString.split("\n")) {
+			if(line.isBlank() || line.startsWith("#")) continue;
+			String[] spl = line.split(":", 2);
+			if(spl.length != 2) {
+				System.err.println("Invalid config line: " + line);
+				continue;
+			}
+
+			String key = spl[0].toLowerCase().trim();
+			String value = spl[1].trim();
+
+			try {
+				switch(key) {
+					case "parallelism" -> parallelism = Integer.parseInt(value);
+					case "page_size" -> pageSize = Integer.parseInt(value);
+					case "feed_items" -> feedItems = Integer.parseInt(value);
+					case "metrics_host" -> metricsHost = value;
+					case "metrics_port" -> metricsPort = Integer.parseInt(value);
+					case "watch_quiet_period" -> watchQuietPeriod = Integer.parseInt(value);
+					case "watch_max_delay" -> watchMaxDelay = Integer.parseInt(value);
+					case "lazy_rendering" -> lazyRendering = Boolean.parseBoolean(value);
+					case "post_cache_size" -> postCacheSize = Integer.parseInt(value);
+					case "search" -> search = Boolean.parseBoolean(value);
+				}
+			}catch(NumberFormatException e) {
+				System.err.println("Invalid config value: " + line);
+			}
+		}
+
+		return new MdBlogConfig(parallelism, pageSize, feedItems, metricsHost, metricsPort, watchQuietPeriod, watchMaxDelay, lazyRendering, postCacheSize, search);
+	}
+
+}
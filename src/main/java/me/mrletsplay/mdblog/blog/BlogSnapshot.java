@@ -0,0 +1,83 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.time.Instant;
+import java.util.Map;
+
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.http.StaticResources;
+import me.mrletsplay.mdblog.rss.FeedConfig;
+import me.mrletsplay.mdblog.search.SearchIndex;
+import me.mrletsplay.mdblog.template.Templates;
+import me.mrletsplay.mdblog.util.PostPath;
+
+public class BlogSnapshot {
+
+	private final PostTree posts;
+	private final SearchIndex searchIndex;
+	private final Map<PostPath, Templates> indexTemplates;
+	private final Map<PostPath, FeedConfig> feedConfigs;
+	private final StaticResources resources;
+	private final Map<IndexKey, CachedDocument> indexCache;
+	private final Map<FeedKey, CachedDocument> feedCache;
+	private final Map<PostPath, Instant> indexesModified;
+	private final Instant allIndexesModified;
+
+	public BlogSnapshot(PostTree posts, SearchIndex searchIndex, Map<PostPath, Templates> indexTemplates, Map<PostPath, FeedConfig> feedConfigs, StaticResources resources, Map<IndexKey, CachedDocument> indexCache, Map<FeedKey, CachedDocument> feedCache, Map<PostPath, Instant> indexesModified, Instant allIndexesModified) {
+		this.posts = posts;
+		this.searchIndex = searchIndex;
+		this.indexTemplates = Map.copyOf(indexTemplates);
+		this.feedConfigs = Map.copyOf(feedConfigs);
+		this.resources = resources;
+		this.indexCache = indexCache;
+		this.feedCache = feedCache;
+		this.indexesModified = Map.copyOf(indexesModified);
+		this.allIndexesModified = allIndexesModified;
+	}
+
+	public PostTree getPosts() {
+		return posts;
+	}
+
+	public SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	public Map<PostPath, Templates> getIndexTemplates() {
+		return indexTemplates;
+	}
+
+	public Map<PostPath, FeedConfig> getFeedConfigs() {
+		return feedConfigs;
+	}
+
+	public StaticResources getResources() {
+		return resources;
+	}
+
+	// Unlike the other maps, the caches are filled on demand when indexes or feeds of this snapshot are requested
+	public Map<IndexKey, CachedDocument> getIndexCache() {
+		return indexCache;
+	}
+
+	public Map<FeedKey, CachedDocument> getFeedCache() {
+		return feedCache;
+	}
+
+	// The time the indexes of each directory were last invalidated, directories without an entry are unchanged since all indexes were
+	public Map<PostPath, Instant> getIndexesModified() {
+		return indexesModified;
+	}
+
+	public Instant getAllIndexesModified() {
+		return allIndexesModified;
+	}
+
+	public Instant getIndexLastModified(PostPath path) {
+		return indexesModified.getOrDefault(path, allIndexesModified);
+	}
+
+	public static record IndexKey(PostPath path, String tag, int page) {}
+
+	public static record FeedKey(PostPath path, boolean recursive, String tag) {}
+
+}
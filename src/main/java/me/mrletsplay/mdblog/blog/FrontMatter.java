@@ -0,0 +1,64 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The metadata block of a post file and the byte offset of the content following the separator
+public record FrontMatter(String metadata, long bodyOffset) {
+
+	private static final byte[] SEPARATOR = "\n---\n".getBytes(StandardCharsets.UTF_8);
+
+	// Only reads the file up to the separator
+	public static FrontMatter scan(Path file) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		long position = 0;
+		int matched = 0;
+
+		try(InputStream in = Files.newInputStream(file)) {
+			int read;
+			while((read = in.read(buffer)) != -1) {
+				for(int i = 0; i < read; i++) {
+					byte b = buffer[i];
+					if(b == SEPARATOR[matched]) {
+						matched++;
+					}else {
+						// Only a newline can start a new match
+						matched = b == SEPARATOR[0] ? 1 : 0;
+					}
+
+					if(matched == SEPARATOR.length) {
+						header.write(buffer, 0, i + 1);
+						byte[] headerBytes = header.toByteArray();
+						String metadata = new String(headerBytes, 0, headerBytes.length - SEPARATOR.length, StandardCharsets.UTF_8);
+						return new FrontMatter(metadata, position + i + 1);
+					}
+				}
+
+				header.write(buffer, 0, read);
+				position += read;
+			}
+		}
+
+		throw new IOException("Invalid post file");
+	}
+
+	public String readBody(Path file) throws IOException {
+		try(SeekableByteChannel channel = Files.newByteChannel(file)) {
+			long size = channel.size() - bodyOffset;
+			if(size < 0 || size > Integer.MAX_VALUE) throw new IOException("Invalid body offset");
+
+			ByteBuffer body = ByteBuffer.allocate((int) size);
+			channel.position(bodyOffset);
+			while(body.hasRemaining() && channel.read(body) != -1);
+			return new String(body.array(), 0, body.position(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
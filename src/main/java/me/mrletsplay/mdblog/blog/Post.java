@@ -1,16 +1,26 @@
 package me.mrletsplay.mdblog.blog;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.http.StaticResources;
 import me.mrletsplay.mdblog.markdown.MdParser;
 import me.mrletsplay.mdblog.markdown.MdRenderer;
+import me.mrletsplay.mdblog.metrics.Metrics;
 import me.mrletsplay.mdblog.template.Template;
 import me.mrletsplay.mdblog.template.Templates;
+import me.mrletsplay.mdblog.util.Checksums;
+import me.mrletsplay.mdblog.util.LinkStyle;
 import me.mrletsplay.mdblog.util.TimeFormatter;
-import me.mrletsplay.mrcore.http.HttpUtils;
 import me.mrletsplay.simplehttpserver.dom.html.HtmlDocument;
 import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
 
@@ -18,24 +28,38 @@ public class Post {
 
 	public static final String FILE_EXTENSION = ".md";
 
-	//private static final MessageDigest MD_5;
 	private static final MdRenderer RENDERER = new MdRenderer();
 
-//	static {
-//		try {
-//			MD_5 = MessageDigest.getInstance("MD5");
-//		} catch (NoSuchAlgorithmException e) {
-//			throw new RuntimeException(e);
-//		}
-//	}
-
-	private Path filePath;
-//	private String checksum; TODO currently unused, post also needs to update when templates change
-	private PostMetadata metadata;
-	private HtmlDocument content;
+	private final Path filePath;
+	private final String checksum;
+	private final String renderChecksum;
+	private final String version;
+	private final PostMetadata metadata;
+	private final CachedDocument content;
+	private final PostContentCache contentCache;
+	private final Supplier<CachedDocument> contentLoader;
+
+	// Lazily loaded posts keep the offset of their body and their validators, so they are known before the post is rendered
+	private final FrontMatter frontMatter;
+	private final Instant lastModified;
+	private final boolean relativeDates;
+
+	Post(Path filePath, String checksum, String renderChecksum, PostMetadata metadata, CachedDocument content) {
+		this(filePath, checksum, renderChecksum, metadata, content, null, null, null, null, false);
+	}
 
-	public Post(Path filePath) throws IOException {
+	private Post(Path filePath, String checksum, String renderChecksum, PostMetadata metadata, CachedDocument content, PostContentCache contentCache, Supplier<CachedDocument> contentLoader, FrontMatter frontMatter, Instant lastModified, boolean relativeDates) {
 		this.filePath = filePath;
+		this.checksum = checksum;
+		this.renderChecksum = renderChecksum;
+		this.version = getVersion(checksum, renderChecksum);
+		this.metadata = metadata;
+		this.content = content;
+		this.contentCache = contentCache;
+		this.contentLoader = contentLoader;
+		this.frontMatter = frontMatter;
+		this.lastModified = lastModified;
+		this.relativeDates = relativeDates;
 	}
 
 	public Path getFilePath() {
@@ -47,34 +71,169 @@ public class Post {
 		return fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
 	}
 
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public String getRenderChecksum() {
+		return renderChecksum;
+	}
+
+	// Changes whenever the file, the templates or the resources change, used for the ETag of the post
+	public String getVersion() {
+		return version;
+	}
+
 	public PostMetadata getMetadata() {
 		return metadata;
 	}
 
-	public HtmlDocument getContent() {
+	// Lazily loaded posts are rendered on the first call, which throws an UncheckedIOException if the post can't be read anymore
+	public CachedDocument getContent() {
+		if(content != null) return content;
+		return contentCache.get(this, contentLoader);
+	}
+
+	// Reads the body of a lazily loaded post starting at the offset found while scanning, without rendering it
+	public String readBody() throws IOException {
+		if(frontMatter == null) throw new IllegalStateException("Only lazily loaded posts keep the offset of their body");
+		return frontMatter.readBody(filePath);
+	}
+
+	// Answers revalidation of lazily loaded posts without rendering them, other posts are checked by their content
+	public boolean isNotModified() {
+		if(content != null) return false;
+		return CachedDocument.isNotModified(version, lastModified, relativeDates);
+	}
+
+	private boolean isUpToDate(String newChecksum, String newRenderChecksum) {
+		return checksum.equals(newChecksum) && renderChecksum.equals(newRenderChecksum);
+	}
+
+	public Post update(byte[] postData, Templates templates, StaticResources resources, LinkStyle links, RenderCache cache, PostContentCache contentCache) throws IOException {
+		return load(filePath, postData, templates, resources, links, cache, contentCache, this);
+	}
+
+	// If a content cache is given, only the metadata is loaded and the content is rendered when it's first requested. Otherwise, postData can be the already read content of the file
+	public static Post load(Path filePath, byte[] postData, Templates templates, StaticResources resources, LinkStyle links, RenderCache cache, PostContentCache contentCache) throws IOException {
+		return load(filePath, postData, templates, resources, links, cache, contentCache, null);
+	}
+
+	private static Post load(Path filePath, byte[] postData, Templates templates, StaticResources resources, LinkStyle links, RenderCache cache, PostContentCache contentCache, Post previous) throws IOException {
+		// Posts link to the fingerprinted resources, so they need to be rerendered when those change
+		String renderChecksum = templates.getChecksum() + "-" + resources.getChecksum();
+
+		String checksum;
+		if(contentCache != null) {
+			// Lazily loaded posts are compared by size and modification time, so unchanged files aren't read at all
+			checksum = getFingerprint(filePath);
+		}else {
+			if(postData == null) postData = Files.readAllBytes(filePath);
+			checksum = Checksums.checksum(postData);
+		}
+
+		if(previous != null && previous.isUpToDate(checksum, renderChecksum)) {
+			Metrics.POSTS_UNCHANGED.increment();
+			return previous;
+		}
+
+		Instant lastModified = getLastModified(filePath, templates, resources);
+
+		if(contentCache != null) {
+			FrontMatter frontMatter = FrontMatter.scan(filePath);
+			PostMetadata metadata = PostMetadata.load(frontMatter.metadata());
+			Supplier<CachedDocument> loader = () -> {
+				try {
+					return loadContent(filePath, checksum, renderChecksum, lastModified, frontMatter, metadata, templates, resources, links, cache);
+				}catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			};
+
+			boolean relativeDates = templates.get(Template.POST).contains("{date_relative}");
+			return new Post(filePath, checksum, renderChecksum, metadata, null, contentCache, loader, frontMatter, lastModified, relativeDates);
+		}
+
+		if(cache != null) {
+			Post cached = cache.load(filePath, checksum, renderChecksum, lastModified);
+			if(cached != null) {
+				Metrics.POSTS_FROM_RENDER_CACHE.increment();
+				return cached;
+			}
+		}
+
+		String[] spl = split(postData);
+		PostMetadata metadata = PostMetadata.load(spl[0]);
+		Post post = new Post(filePath, checksum, renderChecksum, metadata, render(spl[1], metadata, lastModified, getVersion(checksum, renderChecksum), templates, resources, links));
+		if(cache != null) cache.save(post);
+		return post;
+	}
+
+	private static CachedDocument loadContent(Path filePath, String fingerprint, String renderChecksum, Instant lastModified, FrontMatter frontMatter, PostMetadata metadata, Templates templates, StaticResources resources, LinkStyle links, RenderCache cache) throws IOException {
+		if(cache != null) {
+			Post cached = cache.load(filePath, fingerprint, renderChecksum, lastModified);
+			if(cached != null) {
+				Metrics.POSTS_FROM_RENDER_CACHE.increment();
+				return cached.getContent();
+			}
+		}
+
+		if(!getFingerprint(filePath).equals(fingerprint)) {
+			// The file changed since it was scanned, the offset isn't valid anymore. The update will replace the post anyway, until then the content doesn't match the version
+			String[] spl = split(Files.readAllBytes(filePath));
+			PostMetadata newMetadata = PostMetadata.load(spl[0]);
+			return render(spl[1], newMetadata, getLastModified(filePath, templates, resources), null, templates, resources, links);
+		}
+
+		// The body is read starting at the offset found while scanning, so the metadata isn't read again
+		CachedDocument content = render(frontMatter.readBody(filePath), metadata, lastModified, getVersion(fingerprint, renderChecksum), templates, resources, links);
+		if(cache != null) cache.save(new Post(filePath, fingerprint, renderChecksum, metadata, content));
 		return content;
 	}
 
-	private void load(Templates templates) throws IOException {
-		String postData = Files.readString(filePath);
-		String[] spl = postData.split("\n---\n", 2);
+	private static String getFingerprint(Path filePath) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+		return attributes.size() + "-" + attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS);
+	}
+
+	// Rendering again because of changed templates or resources changes the post as well, even if the file didn't change. This is the same for every render, so revalidation keeps working after rendering again
+	private static Instant getLastModified(Path filePath, Templates templates, StaticResources resources) throws IOException {
+		Instant lastModified = Files.getLastModifiedTime(filePath).toInstant();
+		if(templates.getLastModified().isAfter(lastModified)) lastModified = templates.getLastModified();
+		if(resources.getLastModified().isAfter(lastModified)) lastModified = resources.getLastModified();
+		return lastModified;
+	}
+
+	static String getVersion(String checksum, String renderChecksum) {
+		return Checksums.checksum(checksum + "-" + renderChecksum);
+	}
+
+	public static String getBody(byte[] postData) throws IOException {
+		return split(postData)[1];
+	}
+
+	private static String[] split(byte[] postData) throws IOException {
+		String[] spl = new String(postData, StandardCharsets.UTF_8).split("\n---\n", 2);
 		if(spl.length != 2) throw new IOException("Invalid post file");
+		return spl;
+	}
 
-		this.metadata = PostMetadata.load(spl[0]);
+	private static CachedDocument render(String content, PostMetadata metadata, Instant lastModified, String version, Templates templates, StaticResources resources, LinkStyle links) {
+		long start = System.nanoTime();
 
 		String postMd = templates.render(Template.POST,
-			"content", spl[1],
+			"content", content,
 			"title", metadata.title(),
 			"author", metadata.author(),
 			"description", metadata.description(),
 			"date", TimeFormatter.toDateOnly(metadata.date()),
 			"date_time", TimeFormatter.toDateAndTime(metadata.date()),
-			"date_relative", TimeFormatter.toRelativeTime(metadata.date()),
+			"date_relative", TimeFormatter.toRelativeTimeMarker(metadata.date()),
 			"tags", metadata.tags().stream()
 			.map(t -> {
 				HtmlElement link = new HtmlElement("a");
 				link.setText(t);
-				link.setAttribute("href", "./?tag=" + HttpUtils.urlEncode(t));
+				link.setAttribute("href", links.getIndexLink(t, 1));
 				return link.toString();
 			})
 			.collect(Collectors.joining(", ")));
@@ -83,27 +242,14 @@ public class Post {
 		document.getBodyNode().appendChild(RENDERER.render(MdParser.parse(postMd)));
 		document.setTitle(metadata.title());
 		document.setDescription(metadata.description());
-		document.addStyleSheet("_/style/base.css");
-		document.addStyleSheet("_/style/post.css");
-		this.content = document;
-	}
-
-	public boolean update(Templates templates) {
-		if(!Files.exists(filePath)) return false;
-
-		try {
-			//String newChecksum = checksum(filePath);
-			//if(checksum != null && checksum.equals(newChecksum)) return true;
-			//this.checksum = newChecksum;
-			load(templates);
-			return true;
-		} catch (IOException e) {
-			return false;
-		}
-	}
+		document.addStyleSheet(resources.getLink("style/base.css"));
+		document.addStyleSheet(resources.getLink("style/post.css"));
 
-//	private static String checksum(Path filePath) throws IOException {
-//		return ByteUtils.bytesToHex(MD_5.digest(Files.readAllBytes(filePath)));
-//	}
+		CachedDocument rendered = CachedDocument.of(document, lastModified, version);
+
+		Metrics.POSTS_RENDERED.increment();
+		Metrics.POST_RENDER_DURATION.recordSince(start);
+		return rendered;
+	}
 
 }
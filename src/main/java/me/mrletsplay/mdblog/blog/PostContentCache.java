@@ -0,0 +1,100 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.metrics.Metrics;
+
+// Keeps the rendered content of recently requested posts, limited by the total size of the content in bytes
+public class PostContentCache {
+
+	private final long maxSize;
+	private final Map<Post, CachedDocument> documents;
+	private final Map<Post, CompletableFuture<CachedDocument>> loading;
+	private long size;
+
+	public PostContentCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.documents = new LinkedHashMap<>(16, 0.75f, true);
+		this.loading = new ConcurrentHashMap<>();
+	}
+
+	public CachedDocument get(Post post, Supplier<CachedDocument> loader) {
+		CachedDocument document = getCached(post);
+		if(document != null) {
+			Metrics.POST_CONTENT_CACHE_HITS.increment();
+			return document;
+		}
+
+		// Concurrent requests for the same post wait for the first one to render it
+		CompletableFuture<CachedDocument> future = new CompletableFuture<>();
+		CompletableFuture<CachedDocument> existing = loading.putIfAbsent(post, future);
+		if(existing != null) {
+			try {
+				return existing.join();
+			}catch(CompletionException e) {
+				if(e.getCause() instanceof RuntimeException ex) throw ex;
+				throw e;
+			}
+		}
+
+		try {
+			// The post might have been loaded after the first check, but before the future was registered
+			document = getCached(post);
+			if(document == null) {
+				Metrics.POST_CONTENT_CACHE_MISSES.increment();
+				document = loader.get();
+				put(post, document);
+			}
+
+			future.complete(document);
+			return document;
+		}catch(RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		}finally {
+			loading.remove(post, future);
+		}
+	}
+
+	public synchronized void invalidate(Post post) {
+		CachedDocument document = documents.remove(post);
+		if(document != null) size -= getSize(document);
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	private synchronized CachedDocument getCached(Post post) {
+		return documents.get(post);
+	}
+
+	private synchronized void put(Post post, CachedDocument document) {
+		long documentSize = getSize(document);
+		if(documentSize > maxSize) return;
+
+		CachedDocument previous = documents.put(post, document);
+		if(previous != null) size -= getSize(previous);
+		size += documentSize;
+
+		// Evict the least recently used posts
+		Iterator<CachedDocument> it = documents.values().iterator();
+		while(size > maxSize && it.hasNext()) {
+			size -= getSize(it.next());
+			it.remove();
+		}
+	}
+
+	private static long getSize(CachedDocument document) {
+		// The resolved copy is only created when the post is served, so it's counted upfront to keep the size stable
+		return document.getRetainedSize();
+	}
+
+}
@@ -0,0 +1,15 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.util.Comparator;
+
+import me.mrletsplay.mdblog.util.PostPath;
+
+public record PostEntry(PostPath path, Post post) {
+
+	// Posts with the same date are ordered by path, comparing doesn't allocate
+	public static final Comparator<PostEntry> NEWEST_FIRST = (a, b) -> {
+		int date = b.post().getMetadata().date().compareTo(a.post().getMetadata().date());
+		return date != 0 ? date : a.path().compareTo(b.path());
+	};
+
+}
@@ -0,0 +1,271 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import me.mrletsplay.mdblog.util.PostPath;
+
+public class PostTree {
+
+	private static final PostEntry[] NO_ENTRIES = new PostEntry[0];
+	private static final String[] NO_NAMES = new String[0];
+	private static final PostTree EMPTY = new PostTree(Collections.emptyMap(), NO_NAMES, Collections.emptyMap(), NO_ENTRIES, Collections.emptyMap());
+
+	private final Map<String, PostTree> children;
+	private final String[] childNames;
+	private final Map<String, Post> posts;
+	private final PostEntry[] newestPosts;
+	private final Map<String, PostEntry[]> tags;
+	private final int size;
+
+	private PostTree(Map<String, PostTree> children, String[] childNames, Map<String, Post> posts, PostEntry[] newestPosts, Map<String, PostEntry[]> tags) {
+		this.children = children;
+		this.childNames = childNames;
+		this.posts = posts;
+		this.newestPosts = newestPosts;
+		this.tags = tags;
+
+		int size = posts.size();
+		for(PostTree child : children.values()) size += child.size;
+		this.size = size;
+	}
+
+	public Map<String, PostTree> getChildren() {
+		return Collections.unmodifiableMap(children);
+	}
+
+	// Sorted by name
+	public List<String> getChildNames() {
+		return Collections.unmodifiableList(Arrays.asList(childNames));
+	}
+
+	public Map<String, Post> getPosts() {
+		return Collections.unmodifiableMap(posts);
+	}
+
+	public Set<String> getTags() {
+		return Collections.unmodifiableSet(tags.keySet());
+	}
+
+	public List<PostEntry> getPostsNewestFirst() {
+		return Collections.unmodifiableList(Arrays.asList(newestPosts));
+	}
+
+	public List<PostEntry> getPostsWithTag(String tag) {
+		return Collections.unmodifiableList(Arrays.asList(tags.getOrDefault(tag, NO_ENTRIES)));
+	}
+
+	private PostEntry[] getEntries(String tag) {
+		return tag == null ? newestPosts : tags.getOrDefault(tag, NO_ENTRIES);
+	}
+
+	// Merges the sorted lists of the nodes so only the returned posts and the head of every list need to be compared
+	public List<PostEntry> getNewestPosts(String tag, boolean recursive, int limit) {
+		if(limit <= 0) limit = Integer.MAX_VALUE;
+
+		if(!recursive) {
+			PostEntry[] entries = getEntries(tag);
+			return Collections.unmodifiableList(Arrays.asList(entries).subList(0, Math.min(limit, entries.length)));
+		}
+
+		PriorityQueue<Cursor> cursors = new PriorityQueue<>((a, b) -> PostEntry.NEWEST_FIRST.compare(a.current(), b.current()));
+		addCursors(tag, cursors);
+
+		List<PostEntry> newest = new ArrayList<>();
+		while(!cursors.isEmpty() && newest.size() < limit) {
+			Cursor cursor = cursors.poll();
+			newest.add(cursor.current());
+			if(++cursor.index < cursor.entries.length) cursors.add(cursor);
+		}
+		return newest;
+	}
+
+	private void addCursors(String tag, PriorityQueue<Cursor> cursors) {
+		PostEntry[] entries = getEntries(tag);
+		if(entries.length > 0) cursors.add(new Cursor(entries));
+		for(PostTree child : children.values()) child.addCursors(tag, cursors);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public PostTree getNode(PostPath path) {
+		if(path.length() == 0) return this;
+		PostTree parent = getNode(path.getParent());
+		if(parent == null) return null;
+		return parent.children.get(path.getName());
+	}
+
+	public Post getPost(PostPath path) {
+		if(path.length() == 0) return null;
+		PostTree parent = getNode(path.getParent());
+		if(parent == null) return null;
+		return parent.posts.get(path.getName());
+	}
+
+	public void forEachPost(BiConsumer<PostPath, Post> consumer) {
+		forEachPost(PostPath.root(), consumer);
+	}
+
+	private void forEachPost(PostPath path, BiConsumer<PostPath, Post> consumer) {
+		posts.forEach((name, post) -> consumer.accept(path.child(name), post));
+		children.forEach((name, child) -> child.forEachPost(path.child(name), consumer));
+	}
+
+	// Posts mapped to null are removed. Only the nodes on the paths to changed posts are copied, all other nodes are shared with this tree
+	public PostTree withChanges(Map<PostPath, Post> changes) {
+		if(changes.isEmpty()) return this;
+		return withChanges(0, new ArrayList<>(changes.entrySet()));
+	}
+
+	private PostTree withChanges(int depth, List<Map.Entry<PostPath, Post>> changes) {
+		Map<String, Post> newPosts = posts;
+		Map<String, List<Map.Entry<PostPath, Post>>> childChanges = new HashMap<>();
+		List<PostEntry> removedEntries = new ArrayList<>();
+		List<PostEntry> addedEntries = new ArrayList<>();
+
+		for(Map.Entry<PostPath, Post> change : changes) {
+			PostPath path = change.getKey();
+			if(path.length() == 0) continue;
+
+			String name = path.getSegment(depth);
+			if(path.length() > depth + 1) {
+				childChanges.computeIfAbsent(name, n -> new ArrayList<>()).add(change);
+				continue;
+			}
+
+			if(newPosts == posts) newPosts = new HashMap<>(posts);
+			Post oldPost = change.getValue() == null ? newPosts.remove(name) : newPosts.put(name, change.getValue());
+			if(oldPost != null) removedEntries.add(new PostEntry(change.getKey(), oldPost));
+			if(change.getValue() != null) addedEntries.add(new PostEntry(change.getKey(), change.getValue()));
+		}
+
+		Map<String, PostTree> newChildren = children;
+		String[] newChildNames = childNames;
+		if(!childChanges.isEmpty()) {
+			newChildren = new HashMap<>(children);
+			for(Map.Entry<String, List<Map.Entry<PostPath, Post>>> en : childChanges.entrySet()) {
+				PostTree child = children.getOrDefault(en.getKey(), EMPTY).withChanges(depth + 1, en.getValue());
+
+				// Empty directories are removed so that a node exists exactly if it contains posts
+				if(child.isEmpty()) {
+					if(newChildren.remove(en.getKey()) != null) newChildNames = updateNames(newChildNames, en.getKey(), false);
+				}else {
+					if(newChildren.put(en.getKey(), child) == null) newChildNames = updateNames(newChildNames, en.getKey(), true);
+				}
+			}
+		}
+
+		if(newPosts == posts && newChildren == children) return this;
+		return new PostTree(newChildren, newChildNames, newPosts, updateEntries(newestPosts, removedEntries, addedEntries), updateTags(removedEntries, addedEntries));
+	}
+
+	// Only called when directories are added or removed, which is rare compared to changes to posts
+	private static String[] updateNames(String[] names, String name, boolean add) {
+		int index = Arrays.binarySearch(names, name);
+		if(add) {
+			if(index >= 0) return names;
+			index = -index - 1;
+			String[] newNames = new String[names.length + 1];
+			System.arraycopy(names, 0, newNames, 0, index);
+			newNames[index] = name;
+			System.arraycopy(names, index, newNames, index + 1, names.length - index);
+			return newNames;
+		}
+
+		if(index < 0) return names;
+		String[] newNames = new String[names.length - 1];
+		System.arraycopy(names, 0, newNames, 0, index);
+		System.arraycopy(names, index + 1, newNames, index, names.length - index - 1);
+		return newNames;
+	}
+
+	private Map<String, PostEntry[]> updateTags(List<PostEntry> removedEntries, List<PostEntry> addedEntries) {
+		if(removedEntries.isEmpty() && addedEntries.isEmpty()) return tags;
+
+		// Only the lists of tags used by changed posts are copied
+		Map<String, List<PostEntry>> removedByTag = new HashMap<>();
+		Map<String, List<PostEntry>> addedByTag = new HashMap<>();
+		for(PostEntry entry : removedEntries) {
+			for(String tag : entry.post().getMetadata().tags()) {
+				removedByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(entry);
+				addedByTag.computeIfAbsent(tag, t -> new ArrayList<>());
+			}
+		}
+
+		for(PostEntry entry : addedEntries) {
+			for(String tag : entry.post().getMetadata().tags()) {
+				addedByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(entry);
+			}
+		}
+
+		Map<String, PostEntry[]> newTags = new HashMap<>(tags);
+		addedByTag.forEach((tag, added) -> {
+			PostEntry[] entries = updateEntries(tags.getOrDefault(tag, NO_ENTRIES), removedByTag.getOrDefault(tag, Collections.emptyList()), added);
+			if(entries.length == 0) {
+				newTags.remove(tag);
+			}else {
+				newTags.put(tag, entries);
+			}
+		});
+		return newTags;
+	}
+
+	private static PostEntry[] updateEntries(PostEntry[] entries, List<PostEntry> removedEntries, List<PostEntry> addedEntries) {
+		if(removedEntries.isEmpty() && addedEntries.isEmpty()) return entries;
+
+		// The existing entries are already sorted, so only the added entries need to be sorted before both are merged
+		Set<PostEntry> removed = new HashSet<>(removedEntries);
+		PostEntry[] added = addedEntries.toArray(PostEntry[]::new);
+		Arrays.sort(added, PostEntry.NEWEST_FIRST);
+
+		PostEntry[] newEntries = new PostEntry[entries.length + added.length];
+		int count = 0, i = 0, j = 0;
+		while(i < entries.length || j < added.length) {
+			if(i < entries.length && removed.contains(entries[i])) {
+				i++;
+				continue;
+			}
+
+			if(j == added.length || (i < entries.length && PostEntry.NEWEST_FIRST.compare(entries[i], added[j]) <= 0)) {
+				newEntries[count++] = entries[i++];
+			}else {
+				newEntries[count++] = added[j++];
+			}
+		}
+		return count == newEntries.length ? newEntries : Arrays.copyOf(newEntries, count);
+	}
+
+	public static PostTree empty() {
+		return EMPTY;
+	}
+
+	private static class Cursor {
+
+		private final PostEntry[] entries;
+		private int index;
+
+		public Cursor(PostEntry[] entries) {
+			this.entries = entries;
+		}
+
+		public PostEntry current() {
+			return entries[index];
+		}
+
+	}
+
+}
@@ -0,0 +1,153 @@
+package me.mrletsplay.mdblog.blog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.mdblog.http.ContentEncoding;
+import me.mrletsplay.mdblog.util.Checksums;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
+
+public class RenderCache {
+
+	private static final int VERSION = 4;
+	private static final String
+		FILE_EXTENSION = ".bin",
+		TEMP_FILE_EXTENSION = ".tmp";
+
+	private final Path directory;
+
+	public RenderCache(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+
+		// Nothing writes entries yet, so temporary files are left over from a crash
+		try(Stream<Path> entries = Files.list(directory)) {
+			entries.filter(f -> f.getFileName().toString().endsWith(TEMP_FILE_EXTENSION)).forEach(RenderCache::delete);
+		}
+	}
+
+	public Post load(Path filePath, String checksum, String renderChecksum, Instant lastModified) {
+		Path file = getFile(checksum, renderChecksum);
+		if(!Files.isRegularFile(file)) return null;
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if(in.readInt() != VERSION) return null;
+
+			Instant date = Instant.ofEpochSecond(in.readLong(), in.readInt());
+			String title = readString(in);
+			String author = readString(in);
+			int tagCount = in.readInt();
+			Set<String> tags = new LinkedHashSet<>();
+			for(int i = 0; i < tagCount; i++) tags.add(readString(in));
+			String description = readString(in);
+			PostMetadata metadata = new PostMetadata(date, title, author, Collections.unmodifiableSet(tags), description);
+
+			byte[] content = readBytes(in);
+			int encodingCount = in.readInt();
+			Map<ContentEncoding, byte[]> encodedContent = new EnumMap<>(ContentEncoding.class);
+			for(int i = 0; i < encodingCount; i++) {
+				encodedContent.put(ContentEncoding.valueOf(readString(in)), readBytes(in));
+			}
+
+			CachedDocument document = new CachedDocument(MimeType.HTML, content, encodedContent, lastModified, Post.getVersion(checksum, renderChecksum));
+			return new Post(filePath, checksum, renderChecksum, metadata, document);
+		}catch(IOException | IllegalArgumentException e) {
+			System.err.println("Invalid render cache entry: " + file);
+			return null;
+		}
+	}
+
+	public void save(Post post) {
+		Path file = getFile(post.getChecksum(), post.getRenderChecksum());
+
+		try {
+			// Write to a temporary file first so a crash never leaves a partial entry behind
+			Path tempFile = Files.createTempFile(directory, "entry", TEMP_FILE_EXTENSION);
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				out.writeInt(VERSION);
+
+				PostMetadata metadata = post.getMetadata();
+				out.writeLong(metadata.date().getEpochSecond());
+				out.writeInt(metadata.date().getNano());
+				writeString(out, metadata.title());
+				writeString(out, metadata.author());
+				out.writeInt(metadata.tags().size());
+				for(String tag : metadata.tags()) writeString(out, tag);
+				writeString(out, metadata.description());
+
+				CachedDocument content = post.getContent();
+				writeBytes(out, content.getContent());
+				out.writeInt(content.getEncodedContent().size());
+				for(Map.Entry<ContentEncoding, byte[]> en : content.getEncodedContent().entrySet()) {
+					writeString(out, en.getKey().name());
+					writeBytes(out, en.getValue());
+				}
+			}
+
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}catch(IOException e) {
+			System.err.println("Failed to write render cache entry: " + file);
+			e.printStackTrace();
+		}
+	}
+
+	public void retain(Collection<Post> posts) {
+		Set<Path> files = new LinkedHashSet<>();
+		for(Post post : posts) files.add(getFile(post.getChecksum(), post.getRenderChecksum()));
+
+		// Only entries are deleted, temporary files may belong to an entry that is being written by a lazily loaded post
+		try(Stream<Path> entries = Files.list(directory)) {
+			entries.filter(f -> f.getFileName().toString().endsWith(FILE_EXTENSION) && Files.isRegularFile(f) && !files.contains(f)).forEach(RenderCache::delete);
+		}catch(IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.delete(file);
+		}catch(IOException e) {}
+	}
+
+	private Path getFile(String checksum, String renderChecksum) {
+		return directory.resolve(Checksums.checksum(checksum + renderChecksum) + FILE_EXTENSION);
+	}
+
+	private static void writeString(DataOutputStream out, String str) throws IOException {
+		writeBytes(out, str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if(length < 0) throw new IOException("Invalid length");
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+}
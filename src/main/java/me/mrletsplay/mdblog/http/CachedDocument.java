@@ -0,0 +1,237 @@
+package me.mrletsplay.mdblog.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import me.mrletsplay.mdblog.util.Checksums;
+import me.mrletsplay.mdblog.util.RelativeDateTable;
+import me.mrletsplay.mdblog.util.TimeFormatter;
+
+import me.mrletsplay.simplehttpserver.dom.html.HtmlDocument;
+import me.mrletsplay.simplehttpserver.http.document.HttpDocument;
+import me.mrletsplay.simplehttpserver.http.header.HttpServerHeader;
+import me.mrletsplay.simplehttpserver.http.request.HttpRequestContext;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
+
+public class CachedDocument implements HttpDocument {
+
+	private static final byte[] CLOSING_TIME_TAG = "</time>".getBytes(StandardCharsets.UTF_8);
+
+	private final MimeType contentType;
+	private final byte[] content;
+	private final Map<ContentEncoding, byte[]> encodedContent;
+	private final String checksum;
+	private final String version;
+	private final Instant lastModified;
+
+	// Start and end offsets of the text of every relative time marker and the epoch day it refers to
+	private final int[] relativeTimes;
+	private volatile ResolvedDocument resolved;
+
+	// The version is used for the ETag instead of the checksum, so the ETag of a document can be known before it is rendered
+	public CachedDocument(MimeType contentType, byte[] content, Map<ContentEncoding, byte[]> encodedContent, Instant lastModified, String version) {
+		this(contentType, content, encodedContent, lastModified, version, contentType == MimeType.HTML ? findRelativeTimes(content) : new int[0]);
+	}
+
+	public CachedDocument(MimeType contentType, byte[] content, Map<ContentEncoding, byte[]> encodedContent, Instant lastModified) {
+		this(contentType, content, encodedContent, lastModified, null);
+	}
+
+	// Resolved documents still contain the markers, so they are created without relative times to not resolve them again
+	private CachedDocument(MimeType contentType, byte[] content, Map<ContentEncoding, byte[]> encodedContent, Instant lastModified, String version, int[] relativeTimes) {
+		this.contentType = contentType;
+		this.content = content;
+		this.checksum = Checksums.checksum(content);
+		this.version = version != null ? version : checksum;
+		this.lastModified = lastModified;
+		this.encodedContent = encodedContent.isEmpty() ? new EnumMap<>(ContentEncoding.class) : new EnumMap<>(encodedContent);
+		this.relativeTimes = relativeTimes;
+	}
+
+	public CachedDocument(MimeType contentType, byte[] content, Instant lastModified) {
+		this(contentType, content, encode(content), lastModified);
+	}
+
+	public CachedDocument(MimeType contentType, byte[] content, Instant lastModified, String version) {
+		this(contentType, content, encode(content), lastModified, version);
+	}
+
+	public MimeType getContentType() {
+		return contentType;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public byte[] getContent(ContentEncoding encoding) {
+		if(encoding == ContentEncoding.IDENTITY) return content;
+		return encodedContent.get(encoding);
+	}
+
+	public Map<ContentEncoding, byte[]> getEncodedContent() {
+		return Collections.unmodifiableMap(encodedContent);
+	}
+
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getETag(ContentEncoding encoding) {
+		return getETag(version, relativeTimes.length > 0 ? LocalDate.now() : null, encoding);
+	}
+
+	// The size of the content and its encodings, including the resolved document that is kept for documents with relative times
+	public long getRetainedSize() {
+		long size = content.length;
+		for(byte[] encoded : encodedContent.values()) size += encoded.length;
+		return relativeTimes.length > 0 ? 2 * size : size;
+	}
+
+	// Returns the document with the relative times as seen on the given day, the last resolved document is kept until the day changes
+	public CachedDocument resolve(LocalDate day) {
+		if(relativeTimes.length == 0) return this;
+
+		ResolvedDocument current = resolved;
+		if(current != null && current.day().equals(day)) return current.document();
+
+		RelativeDateTable table = RelativeDateTable.forDay(day);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+		int position = 0;
+		for(int i = 0; i < relativeTimes.length; i += 3) {
+			out.write(content, position, relativeTimes[i] - position);
+			out.writeBytes(table.get(relativeTimes[i + 2]).getBytes(StandardCharsets.UTF_8));
+			position = relativeTimes[i + 1];
+		}
+		out.write(content, position, content.length - position);
+
+		// The resolved content is encoded the same ways as the document, so the negotiated encoding is always available
+		byte[] resolvedContent = out.toByteArray();
+		Map<ContentEncoding, byte[]> resolvedEncodedContent = new EnumMap<>(ContentEncoding.class);
+		for(ContentEncoding encoding : encodedContent.keySet()) resolvedEncodedContent.put(encoding, encoding.encode(resolvedContent));
+		CachedDocument document = new CachedDocument(contentType, resolvedContent, resolvedEncodedContent, getLastModified(lastModified, day), version, new int[0]);
+		resolved = new ResolvedDocument(day, document);
+		return document;
+	}
+
+	@Override
+	public void createContent() {
+		HttpRequestContext ctx = HttpRequestContext.getCurrentContext();
+		String acceptEncoding = ctx.getClientHeader().getFields().getFirst("Accept-Encoding");
+		ContentEncoding encoding = ContentEncoding.negotiate(acceptEncoding, encodedContent::containsKey);
+
+		HttpServerHeader header = ctx.getServerHeader();
+		header.getFields().set("Vary", "Accept-Encoding");
+
+		// The validators only depend on the version and the day, so revalidation is answered before the relative times are resolved
+		LocalDate day = relativeTimes.length > 0 ? LocalDate.now() : null;
+		if(ConditionalRequests.isNotModified(getETag(version, day, encoding), getLastModified(lastModified, day))) return;
+
+		CachedDocument document = day != null ? resolve(day) : this;
+		if(encoding != ContentEncoding.IDENTITY) header.getFields().set("Content-Encoding", encoding.getName());
+		header.setContent(contentType, document.getContent(encoding));
+	}
+
+	// Answers revalidation for a document that isn't rendered yet. The arguments must match the ones the document will be created with
+	public static boolean isNotModified(String version, Instant lastModified, boolean relativeTimes) {
+		HttpRequestContext ctx = HttpRequestContext.getCurrentContext();
+		String acceptEncoding = ctx.getClientHeader().getFields().getFirst("Accept-Encoding");
+
+		// Encodings that don't reduce the size aren't kept, in that case the ETag doesn't match and the rendered document is checked instead
+		ContentEncoding encoding = ContentEncoding.negotiate(acceptEncoding, e -> true);
+		LocalDate day = relativeTimes ? LocalDate.now() : null;
+		if(!ConditionalRequests.isNotModified(getETag(version, day, encoding), getLastModified(lastModified, day))) return false;
+
+		ctx.getServerHeader().getFields().set("Vary", "Accept-Encoding");
+		return true;
+	}
+
+	// Every encoding is a different representation and needs its own strong ETag. Documents with relative times change every day
+	private static String getETag(String version, LocalDate day, ContentEncoding encoding) {
+		String etag = version;
+		if(day != null) etag += "-" + Long.toHexString(day.toEpochDay());
+		if(encoding != ContentEncoding.IDENTITY) etag += "-" + encoding.getName();
+		return "\"" + etag + "\"";
+	}
+
+	// Documents with relative times count as modified at the start of the day
+	private static Instant getLastModified(Instant lastModified, LocalDate day) {
+		if(day == null) return lastModified;
+		Instant dayStart = day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+		return lastModified.isAfter(dayStart) ? lastModified : dayStart;
+	}
+
+	private static Map<ContentEncoding, byte[]> encode(byte[] content) {
+		Map<ContentEncoding, byte[]> encodedContent = new EnumMap<>(ContentEncoding.class);
+		for(ContentEncoding encoding : ContentEncoding.values()) {
+			if(encoding == ContentEncoding.IDENTITY) continue;
+
+			// Only keep encodings that actually reduce the size of the content
+			byte[] encoded = encoding.encode(content);
+			if(encoded.length < content.length) encodedContent.put(encoding, encoded);
+		}
+		return encodedContent;
+	}
+
+	private static int[] findRelativeTimes(byte[] content) {
+		byte[] marker = TimeFormatter.RELATIVE_TIME_MARKER.getBytes(StandardCharsets.UTF_8);
+		int[] relativeTimes = new int[0];
+		int count = 0;
+		int index = 0;
+		while((index = indexOf(content, marker, index)) != -1) {
+			int dateStart = index + marker.length;
+			int textStart = indexOf(content, new byte[] {'>'}, dateStart) + 1;
+			int textEnd = indexOf(content, CLOSING_TIME_TAG, textStart);
+			if(textStart == 0 || textEnd == -1) break;
+			index = textEnd;
+
+			try {
+				LocalDate date = LocalDate.parse(new String(content, dateStart, textStart - dateStart - 2, StandardCharsets.UTF_8));
+				if(count == relativeTimes.length) relativeTimes = Arrays.copyOf(relativeTimes, Math.max(count * 2, 6));
+				relativeTimes[count++] = textStart;
+				relativeTimes[count++] = textEnd;
+				relativeTimes[count++] = (int) date.toEpochDay();
+			}catch(DateTimeException e) {
+				continue;
+			}
+		}
+		return Arrays.copyOf(relativeTimes, count);
+	}
+
+	private static int indexOf(byte[] content, byte[] search, int fromIndex) {
+		outer: for(int i = fromIndex; i <= content.length - search.length; i++) {
+			for(int j = 0; j < search.length; j++) {
+				if(content[i + j] != search[j]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	public static CachedDocument of(HtmlDocument document, Instant lastModified) {
+		return of(document, lastModified, null);
+	}
+
+	public static CachedDocument of(HtmlDocument document, Instant lastModified, String version) {
+		return new CachedDocument(MimeType.HTML, document.toString().getBytes(StandardCharsets.UTF_8), lastModified, version);
+	}
+
+	private static record ResolvedDocument(LocalDate day, CachedDocument document) {}
+
+}
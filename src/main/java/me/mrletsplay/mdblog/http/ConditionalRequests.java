@@ -0,0 +1,73 @@
+package me.mrletsplay.mdblog.http;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+import me.mrletsplay.simplehttpserver.http.HttpStatusCodes;
+import me.mrletsplay.simplehttpserver.http.header.HttpHeaderFields;
+import me.mrletsplay.simplehttpserver.http.header.HttpServerHeader;
+import me.mrletsplay.simplehttpserver.http.request.HttpRequestContext;
+
+public class ConditionalRequests {
+
+	private static final byte[] EMPTY = new byte[0];
+
+	public static boolean isNotModified(String etag, Instant lastModified) {
+		HttpRequestContext ctx = HttpRequestContext.getCurrentContext();
+		HttpServerHeader header = ctx.getServerHeader();
+		if(etag != null) header.getFields().set("ETag", etag);
+		if(lastModified != null) header.getFields().set("Last-Modified", formatDate(lastModified));
+
+		if(!isNotModified(ctx.getClientHeader().getFields(), etag, lastModified)) return false;
+
+		header.setStatusCode(HttpStatusCodes.NOT_MODIFIED_304);
+		header.setContent(EMPTY);
+		return true;
+	}
+
+	public static boolean isNotModified(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		Instant lastModified = attributes.lastModifiedTime().toInstant();
+		String etag = "\"" + Long.toHexString(lastModified.toEpochMilli()) + "-" + Long.toHexString(attributes.size()) + "\"";
+		return isNotModified(etag, lastModified);
+	}
+
+	private static boolean isNotModified(HttpHeaderFields fields, String etag, Instant lastModified) {
+		String ifNoneMatch = fields.getFirst("If-None-Match");
+		if(ifNoneMatch != null) {
+			// If-Modified-Since must be ignored when If-None-Match is present
+			if(etag == null) return false;
+
+			for(String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if(tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) return true;
+			}
+
+			return false;
+		}
+
+		String ifModifiedSince = fields.getFirst("If-Modified-Since");
+		if(ifModifiedSince != null && lastModified != null) {
+			try {
+				Instant since = Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(ifModifiedSince.trim()));
+				return !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(since);
+			}catch(DateTimeException e) {
+				return false;
+			}
+		}
+
+		return false;
+	}
+
+	public static String formatDate(Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+	}
+
+}
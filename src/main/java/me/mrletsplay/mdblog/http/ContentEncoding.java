@@ -0,0 +1,89 @@
+package me.mrletsplay.mdblog.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public enum ContentEncoding {
+
+	GZIP("gzip"),
+	DEFLATE("deflate"),
+	IDENTITY("identity"),
+	;
+
+	private final String name;
+
+	private ContentEncoding(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public byte[] encode(byte[] content) {
+		if(this == IDENTITY) return content;
+
+		ByteArrayOutputStream bOut = new ByteArrayOutputStream(content.length / 2);
+		try(OutputStream out = createOutputStream(bOut)) {
+			out.write(content);
+		}catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bOut.toByteArray();
+	}
+
+	private OutputStream createOutputStream(OutputStream out) throws IOException {
+		return switch(this) {
+			case GZIP -> new GZIPOutputStream(out) {
+				{
+					def.setLevel(Deflater.BEST_COMPRESSION);
+				}
+			};
+			case DEFLATE -> new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION));
+			case IDENTITY -> out;
+		};
+	}
+
+	public static ContentEncoding negotiate(String acceptEncoding, Predicate<ContentEncoding> available) {
+		if(acceptEncoding == null || acceptEncoding.isBlank()) return IDENTITY;
+
+		Map<String, Double> qualities = new HashMap<>();
+		for(String encoding : acceptEncoding.split(",")) {
+			String[] spl = encoding.split(";");
+			double quality = 1;
+			for(int i = 1; i < spl.length; i++) {
+				String param = spl[i].trim();
+				if(!param.startsWith("q=")) continue;
+				try {
+					quality = Double.parseDouble(param.substring(2));
+				}catch(NumberFormatException e) {
+					quality = 0;
+				}
+			}
+			qualities.put(spl[0].trim().toLowerCase(), quality);
+		}
+
+		ContentEncoding best = IDENTITY;
+		double bestQuality = 0;
+		for(ContentEncoding encoding : values()) {
+			if(encoding == IDENTITY || !available.test(encoding)) continue;
+
+			double quality = qualities.getOrDefault(encoding.name, qualities.getOrDefault("*", 0d));
+			if(quality > bestQuality) {
+				best = encoding;
+				bestQuality = quality;
+			}
+		}
+
+		return best;
+	}
+
+}
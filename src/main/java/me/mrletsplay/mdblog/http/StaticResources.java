@@ -0,0 +1,140 @@
+package me.mrletsplay.mdblog.http;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import me.mrletsplay.mdblog.util.Checksums;
+import me.mrletsplay.mdblog.util.PostPath;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
+
+// The global resources, loaded and compressed once. Every resource is also available under a name containing the hash of its content, so it can be cached forever
+public class StaticResources {
+
+	private static final StaticResources EMPTY = new StaticResources(Collections.emptyMap(), Collections.emptyMap(), "", Instant.EPOCH);
+
+	private static final int FINGERPRINT_LENGTH = 12;
+
+	private final Map<PostPath, PostPath> fingerprintedPaths;
+	private final Map<PostPath, CachedDocument> documents;
+	private final String checksum;
+	private final Instant lastModified;
+
+	private StaticResources(Map<PostPath, PostPath> fingerprintedPaths, Map<PostPath, CachedDocument> documents, String checksum, Instant lastModified) {
+		this.fingerprintedPaths = fingerprintedPaths;
+		this.documents = documents;
+		this.checksum = checksum;
+		this.lastModified = lastModified;
+	}
+
+	// Returns the link to use in pages, relative to the page
+	public String getLink(String path) {
+		PostPath resourcePath = PostPath.parse(path);
+		return "_/" + fingerprintedPaths.getOrDefault(resourcePath, resourcePath);
+	}
+
+	// Accepts both the original and the fingerprinted paths. Pages rendered before a resource changed still link to its previous fingerprint, so those get the current version
+	public CachedDocument get(PostPath path) {
+		CachedDocument document = documents.get(path);
+		if(document != null) return document;
+
+		PostPath originalPath = getOriginalPath(path);
+		return originalPath != null ? documents.get(originalPath) : null;
+	}
+
+	// Only the current fingerprints can be cached forever, requests for previous ones get the current content
+	public boolean isFingerprinted(PostPath path) {
+		return documents.containsKey(path) && !fingerprintedPaths.containsKey(path);
+	}
+
+	private PostPath getOriginalPath(PostPath path) {
+		String name = path.getName();
+		int extension = name.lastIndexOf('.');
+		if(extension <= 0) return null;
+
+		// Either the fingerprint is followed by the extension, or the resource doesn't have one
+		int fingerprint = name.lastIndexOf('.', extension - 1);
+		if(fingerprint > 0 && isFingerprint(name.substring(fingerprint + 1, extension))) {
+			PostPath originalPath = path.getParent().child(name.substring(0, fingerprint) + name.substring(extension));
+			if(fingerprintedPaths.containsKey(originalPath)) return originalPath;
+		}
+
+		if(isFingerprint(name.substring(extension + 1))) {
+			PostPath originalPath = path.getParent().child(name.substring(0, extension));
+			if(fingerprintedPaths.containsKey(originalPath)) return originalPath;
+		}
+
+		return null;
+	}
+
+	public Map<PostPath, CachedDocument> getDocuments() {
+		return Collections.unmodifiableMap(documents);
+	}
+
+	// Changes whenever any of the links change
+	public String getChecksum() {
+		return checksum;
+	}
+
+	// The latest modification of any of the resources
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public static StaticResources load(Map<PostPath, Path> files) throws IOException {
+		Map<PostPath, PostPath> fingerprintedPaths = new HashMap<>();
+		Map<PostPath, CachedDocument> documents = new HashMap<>();
+		StringBuilder links = new StringBuilder();
+		Instant lastModified = Instant.EPOCH;
+
+		// Sorted, so the checksum doesn't depend on the iteration order of the map
+		for(Map.Entry<PostPath, Path> en : new TreeMap<>(files).entrySet()) {
+			Path file = en.getValue();
+			byte[] content = Files.readAllBytes(file);
+			Instant fileModified = Files.getLastModifiedTime(file).toInstant();
+			if(fileModified.isAfter(lastModified)) lastModified = fileModified;
+			CachedDocument document = new CachedDocument(getContentType(file), content, fileModified);
+
+			PostPath path = en.getKey();
+			PostPath fingerprintedPath = path.getParent().child(getFingerprintedName(path.getName(), document.getChecksum()));
+			fingerprintedPaths.put(path, fingerprintedPath);
+			documents.put(path, document);
+			documents.put(fingerprintedPath, document);
+			links.append(fingerprintedPath).append('\n');
+		}
+
+		return new StaticResources(fingerprintedPaths, documents, Checksums.checksum(links.toString()), lastModified);
+	}
+
+	private static String getFingerprintedName(String name, String checksum) {
+		String fingerprint = checksum.substring(0, FINGERPRINT_LENGTH);
+		int extension = name.lastIndexOf('.');
+		if(extension <= 0) return name + "." + fingerprint;
+		return name.substring(0, extension) + "." + fingerprint + name.substring(extension);
+	}
+
+	private static boolean isFingerprint(String str) {
+		if(str.length() != FINGERPRINT_LENGTH) return false;
+		for(int i = 0; i < str.length(); i++) {
+			if(Character.digit(str.charAt(i), 16) == -1) return false;
+		}
+		return true;
+	}
+
+	private static MimeType getContentType(Path file) throws IOException {
+		// Browsers only apply stylesheets with the correct type, so it doesn't depend on the system's type detection
+		if(file.getFileName().toString().endsWith(".css")) return MimeType.of("text/css");
+		String type = Files.probeContentType(file);
+		return MimeType.of(type != null ? type : "application/octet-stream");
+	}
+
+	public static StaticResources empty() {
+		return EMPTY;
+	}
+
+}
@@ -0,0 +1,12 @@
+package me.mrletsplay.mdblog.markdown;
+
+import org.commonmark.node.Node;
+
+import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
+
+@FunctionalInterface
+public interface MdNodeRenderer<T extends Node> {
+
+	public HtmlElement render(MdRenderContext ctx, T node);
+
+}
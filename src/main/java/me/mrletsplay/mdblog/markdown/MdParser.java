@@ -10,13 +10,25 @@ import org.commonmark.parser.Parser;
 
 public class MdParser {
 
-	private static Parser parser = new Parser.Builder()
+	// Parser is immutable and can be shared between threads
+	private static final Parser PARSER = new Parser.Builder()
 		.extensions(Arrays.asList(TablesExtension.create(), StrikethroughExtension.create(), InsExtension.create(), TaskListItemsExtension.create()))
 		.build();
 
 	public static Node parse(String text) {
-		Node n = parser.parse(text);
+		Node n = PARSER.parse(text);
 		return n;
 	}
 
+	// Escapes all ASCII punctuation so the text is rendered literally
+	public static String escape(String text) {
+		StringBuilder escaped = new StringBuilder(text.length());
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c < 128 && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c) && !Character.isISOControl(c)) escaped.append('\\');
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
 }
@@ -1,6 +1,6 @@
 package me.mrletsplay.mdblog.markdown;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.commonmark.ext.gfm.strikethrough.Strikethrough;
 import org.commonmark.ext.gfm.tables.TableBlock;
@@ -37,31 +37,69 @@ import me.mrletsplay.simplehttpserver.dom.html.HtmlElement;
 
 public class MdRenderer {
 
+	private final Map<Class<? extends Node>, MdNodeRenderer<?>> renderers;
+
+	public MdRenderer() {
+		this.renderers = new ConcurrentHashMap<>();
+		register(Document.class, this::render);
+		register(Heading.class, this::render);
+		register(Paragraph.class, this::render);
+		register(BlockQuote.class, this::render);
+		register(BulletList.class, this::render);
+		register(FencedCodeBlock.class, this::render);
+		register(HtmlBlock.class, this::render);
+		register(ThematicBreak.class, this::render);
+		register(IndentedCodeBlock.class, this::render);
+		register(Link.class, this::render);
+		register(ListItem.class, this::render);
+		register(OrderedList.class, this::render);
+		register(Image.class, this::render);
+		register(Emphasis.class, this::render);
+		register(StrongEmphasis.class, this::render);
+		register(Text.class, this::render);
+		register(Code.class, this::render);
+		register(HtmlInline.class, this::render);
+		register(SoftLineBreak.class, this::render);
+		register(HardLineBreak.class, this::render);
+		register(LinkReferenceDefinition.class, this::render);
+		register(Strikethrough.class, this::render);
+		register(TableBlock.class, this::render);
+		register(TableHead.class, this::render);
+		register(TableBody.class, this::render);
+		register(TableRow.class, this::render);
+		register(TableCell.class, this::render);
+		register(Ins.class, this::render);
+		register(TaskListItemMarker.class, this::render);
+	}
+
+	public <T extends Node> void register(Class<T> nodeType, MdNodeRenderer<? super T> renderer) {
+		renderers.put(nodeType, renderer);
+	}
+
 	public HtmlElement render(Node node) {
-		MdRenderContext ctx = new MdRenderContext(this);
+		return renderNode(new MdRenderContext(this), node);
+	}
 
+	public HtmlElement renderNode(MdRenderContext ctx, Node node) {
 		HtmlElement element = renderSingleNode(ctx, node);
 		if(element == null) return null;
-		Node ch = node.getFirstChild();
-		if(ch == null) return element;
-		do {
-			HtmlElement chEl = render(ch);
+		for(Node ch = node.getFirstChild(); ch != null; ch = ch.getNext()) {
+			HtmlElement chEl = renderNode(ctx, ch);
 			if(chEl == null) continue;
 			element.appendChild(chEl);
-		}while((ch = ch.getNext()) != null);
+		}
 		return element;
 	}
 
+	@SuppressWarnings("unchecked")
 	private HtmlElement renderSingleNode(MdRenderContext ctx, Node node) {
-		try {
-			Method m = MdRenderer.class.getDeclaredMethod("render", MdRenderContext.class, node.getClass());
-			return (HtmlElement) m.invoke(this, ctx, node);
-		}catch(NoSuchMethodException e) {
-			System.err.println("Warning: No render() method defined for " + node.getClass().getName());
+		MdNodeRenderer<Node> renderer = (MdNodeRenderer<Node>) renderers.get(node.getClass());
+		if(renderer == null) {
+			System.err.println("Warning: No renderer registered for " + node.getClass().getName());
 			return null;
-		} catch (SecurityException | IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			throw new RuntimeException(e);
 		}
+
+		return renderer.render(ctx, node);
 	}
 
 	public HtmlElement render(MdRenderContext ctx, Document node) {
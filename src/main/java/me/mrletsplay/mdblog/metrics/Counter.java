@@ -0,0 +1,35 @@
+package me.mrletsplay.mdblog.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements Metric {
+
+	private final LongAdder value;
+
+	public Counter() {
+		this.value = new LongAdder();
+	}
+
+	public void increment() {
+		value.increment();
+	}
+
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	public long get() {
+		return value.sum();
+	}
+
+	@Override
+	public String getType() {
+		return "counter";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels) {
+		out.append(name).append(Metric.formatLabels(labels)).append(' ').append(get()).append('\n');
+	}
+
+}
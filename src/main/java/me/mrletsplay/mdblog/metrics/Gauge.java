@@ -0,0 +1,23 @@
+package me.mrletsplay.mdblog.metrics;
+
+import java.util.function.LongSupplier;
+
+public class Gauge implements Metric {
+
+	private final LongSupplier value;
+
+	public Gauge(LongSupplier value) {
+		this.value = value;
+	}
+
+	@Override
+	public String getType() {
+		return "gauge";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels) {
+		out.append(name).append(Metric.formatLabels(labels)).append(' ').append(value.getAsLong()).append('\n');
+	}
+
+}
@@ -0,0 +1,54 @@
+package me.mrletsplay.mdblog.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram implements Metric {
+
+	// Bucket i counts durations of up to 2^i microseconds (about 34 seconds for the last one), larger durations go into an overflow bucket
+	private static final int BUCKETS = 26;
+
+	private final LongAdder[] counts;
+	private final LongAdder sumNanos;
+
+	public Histogram() {
+		this.counts = new LongAdder[BUCKETS + 1];
+		for(int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+		this.sumNanos = new LongAdder();
+	}
+
+	public void record(long nanos) {
+		// Rounded up, so durations of up to 1000 * 2^i nanoseconds end up in bucket i and durations just above a bound go into the next one
+		long micros = (Math.max(0, nanos) + 999) / 1000;
+
+		// Finding the bucket is a single leading zero count instead of a search through the bounds
+		int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+		counts[Math.min(bucket, BUCKETS)].increment();
+		sumNanos.add(nanos);
+	}
+
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	@Override
+	public String getType() {
+		return "histogram";
+	}
+
+	@Override
+	public void write(StringBuilder out, String name, String labels) {
+		String prefix = labels.isEmpty() ? "" : labels + ",";
+
+		long count = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			count += counts[i].sum();
+			out.append(name).append("_bucket{").append(prefix).append("le=\"").append((1L << i) / 1e6).append("\"} ").append(count).append('\n');
+		}
+
+		count += counts[BUCKETS].sum();
+		out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+		out.append(name).append("_sum").append(Metric.formatLabels(labels)).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+		out.append(name).append("_count").append(Metric.formatLabels(labels)).append(' ').append(count).append('\n');
+	}
+
+}
@@ -0,0 +1,14 @@
+package me.mrletsplay.mdblog.metrics;
+
+public interface Metric {
+
+	public String getType();
+
+	// Labels are already formatted as name="value" pairs separated by commas and may be empty
+	public void write(StringBuilder out, String name, String labels);
+
+	public static String formatLabels(String labels) {
+		return labels.isEmpty() ? "" : "{" + labels + "}";
+	}
+
+}
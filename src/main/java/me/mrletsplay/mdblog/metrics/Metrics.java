@@ -0,0 +1,41 @@
+package me.mrletsplay.mdblog.metrics;
+
+public class Metrics {
+
+	public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	public static final Counter
+		INDEX_CACHE_HITS = REGISTRY.counter("mdblog_index_cache_requests_total", "Requests for index pages by cache result", "result", "hit"),
+		INDEX_CACHE_MISSES = REGISTRY.counter("mdblog_index_cache_requests_total", "Requests for index pages by cache result", "result", "miss"),
+		FEED_CACHE_HITS = REGISTRY.counter("mdblog_feed_cache_requests_total", "Requests for feeds by cache result", "result", "hit"),
+		FEED_CACHE_MISSES = REGISTRY.counter("mdblog_feed_cache_requests_total", "Requests for feeds by cache result", "result", "miss"),
+		POSTS_UNCHANGED = REGISTRY.counter("mdblog_post_loads_total", "Post loads by result", "result", "unchanged"),
+		POSTS_FROM_RENDER_CACHE = REGISTRY.counter("mdblog_post_loads_total", "Post loads by result", "result", "render_cache"),
+		POSTS_RENDERED = REGISTRY.counter("mdblog_post_loads_total", "Post loads by result", "result", "rendered"),
+		POST_CONTENT_CACHE_HITS = REGISTRY.counter("mdblog_post_content_cache_requests_total", "Requests for lazily rendered posts by cache result", "result", "hit"),
+		POST_CONTENT_CACHE_MISSES = REGISTRY.counter("mdblog_post_content_cache_requests_total", "Requests for lazily rendered posts by cache result", "result", "miss");
+
+	public static final Histogram
+		POST_RENDER_DURATION = REGISTRY.histogram("mdblog_post_render_duration_seconds", "Time spent parsing and rendering a post"),
+		INDEX_RENDER_DURATION = REGISTRY.histogram("mdblog_index_render_duration_seconds", "Time spent rendering an index page"),
+		SEARCH_DURATION = REGISTRY.histogram("mdblog_search_duration_seconds", "Time spent querying the search index"),
+		FEED_SERIALIZE_DURATION = REGISTRY.histogram("mdblog_feed_serialize_duration_seconds", "Time spent serializing a feed"),
+		FULL_REBUILD_DURATION = REGISTRY.histogram("mdblog_rebuild_duration_seconds", "Time spent rebuilding the blog", "type", "full"),
+		INCREMENTAL_REBUILD_DURATION = REGISTRY.histogram("mdblog_rebuild_duration_seconds", "Time spent rebuilding the blog", "type", "incremental");
+
+	// One histogram per route, so requests don't have to look them up in the registry
+	public static final Histogram
+		UNAVAILABLE_REQUEST_DURATION = requestDuration("unavailable"),
+		RESOURCE_REQUEST_DURATION = requestDuration("resource"),
+		NOT_FOUND_REQUEST_DURATION = requestDuration("not_found"),
+		FEED_REQUEST_DURATION = requestDuration("feed"),
+		POST_REQUEST_DURATION = requestDuration("post"),
+		REDIRECT_REQUEST_DURATION = requestDuration("redirect"),
+		INDEX_REQUEST_DURATION = requestDuration("index"),
+		FILE_REQUEST_DURATION = requestDuration("file");
+
+	private static Histogram requestDuration(String route) {
+		return REGISTRY.histogram("mdblog_request_duration_seconds", "Time spent handling a request", "route", route);
+	}
+
+}
@@ -0,0 +1,62 @@
+package me.mrletsplay.mdblog.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class MetricsRegistry {
+
+	private final Map<String, MetricFamily> families;
+
+	public MetricsRegistry() {
+		this.families = new ConcurrentSkipListMap<>();
+	}
+
+	public Counter counter(String name, String help, String... labels) {
+		return register(name, help, labels, Counter.class, Counter::new);
+	}
+
+	public Histogram histogram(String name, String help, String... labels) {
+		return register(name, help, labels, Histogram.class, Histogram::new);
+	}
+
+	public Gauge gauge(String name, String help, LongSupplier value, String... labels) {
+		return register(name, help, labels, Gauge.class, () -> new Gauge(value));
+	}
+
+	// Registering the same name and labels again returns the existing metric, so metrics can be looked up by their labels
+	private <T extends Metric> T register(String name, String help, String[] labels, Class<T> type, Supplier<T> create) {
+		if(labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be name-value pairs");
+
+		StringBuilder formattedLabels = new StringBuilder();
+		for(int i = 0; i < labels.length; i += 2) {
+			if(i > 0) formattedLabels.append(',');
+			formattedLabels.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+		}
+
+		MetricFamily family = families.computeIfAbsent(name, n -> new MetricFamily(help, new ConcurrentSkipListMap<>()));
+		Metric metric = family.metrics().computeIfAbsent(formattedLabels.toString(), l -> create.get());
+		if(!type.isInstance(metric)) throw new IllegalArgumentException("Metric " + name + " is already registered with a different type");
+		return type.cast(metric);
+	}
+
+	// Prometheus text exposition format, version 0.0.4
+	public String toPrometheusText() {
+		StringBuilder out = new StringBuilder();
+		families.forEach((name, family) -> {
+			if(family.metrics().isEmpty()) return;
+			out.append("# HELP ").append(name).append(' ').append(family.help()).append('\n');
+			out.append("# TYPE ").append(name).append(' ').append(family.metrics().values().iterator().next().getType()).append('\n');
+			family.metrics().forEach((labels, metric) -> metric.write(out, name, labels));
+		});
+		return out.toString();
+	}
+
+	private static String escape(String labelValue) {
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static record MetricFamily(String help, Map<String, Metric> metrics) {}
+
+}
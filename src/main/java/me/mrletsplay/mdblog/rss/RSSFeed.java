@@ -1,19 +1,15 @@
 package me.mrletsplay.mdblog.rss;
 
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
 public class RSSFeed {
 
+	private static final String INDENT = "    ";
+
 	private String title;
 	private String link;
 	private String description;
@@ -30,55 +26,54 @@ public class RSSFeed {
 		items.add(item);
 	}
 
-	public Document toXML() throws ParserConfigurationException {
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		DocumentBuilder builder = dbf.newDocumentBuilder();
-		Document doc = builder.newDocument();
-
-		Element rss = doc.createElement("rss");
-		doc.appendChild(rss);
-
-		Element channel = doc.createElement("channel");
-		rss.appendChild(channel);
-
-		Element title = doc.createElement("title");
-		title.setTextContent(this.title);
-		channel.appendChild(title);
+	public Instant getLastModified() {
+		return items.stream()
+			.map(RSSItem::date)
+			.max(Instant::compareTo)
+			.orElse(null);
+	}
 
-		Element link = doc.createElement("link");
-		link.setTextContent(this.link);
-		channel.appendChild(link);
+	public String toXML() {
+		StringBuilder xml = new StringBuilder(512 + items.size() * 512);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		xml.append("<rss>\n");
+		xml.append(INDENT).append("<channel>\n");
 
-		Element description = doc.createElement("description");
-		description.setTextContent(this.description);
-		channel.appendChild(description);
+		appendElement(xml, 2, "title", title);
+		appendElement(xml, 2, "link", link);
+		appendElement(xml, 2, "description", description);
 
 		for(RSSItem item : items) {
-			Element itemEl = doc.createElement("item");
-			channel.appendChild(itemEl);
-
-			Element itDate = doc.createElement("pubDate");
-			itDate.setTextContent(DateTimeFormatter.RFC_1123_DATE_TIME.format(item.date().atZone(ZoneId.systemDefault())));
-			itemEl.appendChild(itDate);
-
-			Element itTitle = doc.createElement("title");
-			itTitle.setTextContent(item.title());
-			itemEl.appendChild(itTitle);
+			xml.append(INDENT.repeat(2)).append("<item>\n");
+			appendElement(xml, 3, "pubDate", DateTimeFormatter.RFC_1123_DATE_TIME.format(item.date().atZone(ZoneId.systemDefault())));
+			appendElement(xml, 3, "title", item.title());
+			appendElement(xml, 3, "author", item.author());
+			appendElement(xml, 3, "link", item.link());
+			appendElement(xml, 3, "description", item.description());
+			xml.append(INDENT.repeat(2)).append("</item>\n");
+		}
 
-			Element itAuthor = doc.createElement("author");
-			itAuthor.setTextContent(item.author());
-			itemEl.appendChild(itAuthor);
+		xml.append(INDENT).append("</channel>\n");
+		xml.append("</rss>\n");
+		return xml.toString();
+	}
 
-			Element itLink = doc.createElement("link");
-			itLink.setTextContent(item.link());
-			itemEl.appendChild(itLink);
+	private static void appendElement(StringBuilder xml, int depth, String name, String text) {
+		xml.append(INDENT.repeat(depth)).append('<').append(name).append('>');
+		appendEscaped(xml, text);
+		xml.append("</").append(name).append(">\n");
+	}
 
-			Element itDescription = doc.createElement("description");
-			itDescription.setTextContent(item.description());
-			itemEl.appendChild(itDescription);
+	private static void appendEscaped(StringBuilder xml, String text) {
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch(c) {
+				case '&' -> xml.append("&amp;");
+				case '<' -> xml.append("&lt;");
+				case '>' -> xml.append("&gt;");
+				default -> xml.append(c);
+			}
 		}
-
-		return doc;
 	}
 
 }
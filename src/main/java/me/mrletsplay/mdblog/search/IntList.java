@@ -0,0 +1,32 @@
+package me.mrletsplay.mdblog.search;
+
+import java.util.Arrays;
+
+// Growable list of primitive ints, used to build posting lists without boxing
+class IntList {
+
+	private int[] values;
+	private int size;
+
+	public IntList(int capacity) {
+		this.values = new int[Math.max(capacity, 4)];
+	}
+
+	public void add(int value) {
+		if(size == values.length) values = Arrays.copyOf(values, size * 2);
+		values[size++] = value;
+	}
+
+	public int get(int index) {
+		return values[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+}
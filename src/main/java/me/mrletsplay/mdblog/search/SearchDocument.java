@@ -0,0 +1,47 @@
+package me.mrletsplay.mdblog.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import me.mrletsplay.mdblog.blog.PostMetadata;
+
+// The distinct terms of a post and their weighted frequencies
+public record SearchDocument(String[] terms, int[] frequencies, int length) {
+
+	private static final int
+		TITLE_WEIGHT = 3,
+		TAG_WEIGHT = 3,
+		DESCRIPTION_WEIGHT = 2,
+		AUTHOR_WEIGHT = 1,
+		BODY_WEIGHT = 1;
+
+	public static SearchDocument of(PostMetadata metadata, String body) {
+		Map<String, int[]> frequencies = new HashMap<>();
+		int length = 0;
+		length += addTerms(frequencies, metadata.title(), TITLE_WEIGHT);
+		for(String tag : metadata.tags()) length += addTerms(frequencies, tag, TAG_WEIGHT);
+		length += addTerms(frequencies, metadata.description(), DESCRIPTION_WEIGHT);
+		length += addTerms(frequencies, metadata.author(), AUTHOR_WEIGHT);
+		if(body != null) length += addTerms(frequencies, body, BODY_WEIGHT);
+
+		String[] terms = new String[frequencies.size()];
+		int[] termFrequencies = new int[frequencies.size()];
+		int i = 0;
+		for(Map.Entry<String, int[]> en : frequencies.entrySet()) {
+			terms[i] = en.getKey();
+			termFrequencies[i++] = en.getValue()[0];
+		}
+
+		return new SearchDocument(terms, termFrequencies, length);
+	}
+
+	private static int addTerms(Map<String, int[]> frequencies, String text, int weight) {
+		int count = 0;
+		for(String term : Tokenizer.tokenize(text)) {
+			frequencies.computeIfAbsent(term, t -> new int[1])[0] += weight;
+			count += weight;
+		}
+		return count;
+	}
+
+}
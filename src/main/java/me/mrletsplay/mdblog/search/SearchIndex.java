@@ -0,0 +1,221 @@
+package me.mrletsplay.mdblog.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.mrletsplay.mdblog.util.PostPath;
+
+// Immutable inverted index, changes create a new index that shares the posting lists of unaffected terms
+public class SearchIndex {
+
+	private static final SearchIndex EMPTY = new SearchIndex(new PostPath[0], new String[0][], new int[0], Map.of(), Map.of(), 0, 0);
+
+	// BM25 parameters
+	private static final double
+		K1 = 1.2,
+		B = 0.75;
+
+	// Document ids of removed posts are reused only when the index is compacted
+	private final PostPath[] paths;
+	private final String[][] terms;
+	private final int[] lengths;
+	private final Map<PostPath, Integer> ids;
+
+	// Document id and term frequency pairs, sorted by document id
+	private final Map<String, int[]> postings;
+
+	private final int documentCount;
+	private final long totalLength;
+
+	private SearchIndex(PostPath[] paths, String[][] terms, int[] lengths, Map<PostPath, Integer> ids, Map<String, int[]> postings, int documentCount, long totalLength) {
+		this.paths = paths;
+		this.terms = terms;
+		this.lengths = lengths;
+		this.ids = ids;
+		this.postings = postings;
+		this.documentCount = documentCount;
+		this.totalLength = totalLength;
+	}
+
+	public int size() {
+		return documentCount;
+	}
+
+	// Returns the paths of the best matching posts below the given path
+	public List<PostPath> search(String query, PostPath path, int limit) {
+		if(documentCount == 0) return List.of();
+
+		double averageLength = (double) totalLength / documentCount;
+		float[] scores = new float[paths.length];
+		IntList matches = new IntList(64);
+		for(String term : Tokenizer.tokenize(query).stream().distinct().toList()) {
+			int[] posting = postings.get(term);
+			if(posting == null) continue;
+
+			int documentFrequency = posting.length / 2;
+			double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+			for(int i = 0; i < posting.length; i += 2) {
+				int id = posting[i];
+				int frequency = posting[i + 1];
+				double norm = K1 * (1 - B + B * lengths[id] / averageLength);
+				if(scores[id] == 0) matches.add(id);
+				scores[id] += (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+			}
+		}
+
+		// Scores are positive, so their bits sort like the scores and both can be sorted as a single long
+		long[] ranked = new long[matches.size()];
+		int count = 0;
+		for(int i = 0; i < matches.size(); i++) {
+			int id = matches.get(i);
+			if(!paths[id].startsWith(path)) continue;
+			ranked[count++] = ((long) Float.floatToIntBits(scores[id]) << 32) | (Integer.MAX_VALUE - id);
+		}
+		Arrays.sort(ranked, 0, count);
+
+		List<PostPath> results = new ArrayList<>(Math.min(count, limit));
+		for(int i = count - 1; i >= 0 && results.size() < limit; i--) {
+			results.add(paths[Integer.MAX_VALUE - (int) ranked[i]]);
+		}
+		return results;
+	}
+
+	// Documents mapped to null are removed
+	public SearchIndex withChanges(Map<PostPath, SearchDocument> changes) {
+		if(changes.isEmpty()) return this;
+
+		int newCount = documentCount;
+		long newTotalLength = totalLength;
+		for(Map.Entry<PostPath, SearchDocument> change : changes.entrySet()) {
+			if(ids.containsKey(change.getKey())) {
+				newCount--;
+				newTotalLength -= lengths[ids.get(change.getKey())];
+			}
+
+			if(change.getValue() != null) {
+				newCount++;
+				newTotalLength += change.getValue().length();
+			}
+		}
+
+		// Rebuild the index without the unused ids once more than half of them belong to removed posts
+		int added = (int) changes.values().stream().filter(d -> d != null).count();
+		if(paths.length + added > 2 * newCount + 64) return compact(changes, newCount, newTotalLength);
+
+		PostPath[] newPaths = Arrays.copyOf(paths, paths.length + added);
+		String[][] newTerms = Arrays.copyOf(terms, terms.length + added);
+		int[] newLengths = Arrays.copyOf(lengths, lengths.length + added);
+		Map<PostPath, Integer> newIds = new HashMap<>(ids);
+
+		BitSet removedIds = new BitSet();
+		Map<String, IntList> addedPostings = new HashMap<>();
+		int nextId = paths.length;
+		for(Map.Entry<PostPath, SearchDocument> change : changes.entrySet()) {
+			Integer oldId = newIds.remove(change.getKey());
+			if(oldId != null) {
+				removedIds.set(oldId);
+				for(String term : terms[oldId]) addedPostings.computeIfAbsent(term, t -> new IntList(2));
+				newPaths[oldId] = null;
+				newTerms[oldId] = null;
+				newLengths[oldId] = 0;
+			}
+
+			SearchDocument document = change.getValue();
+			if(document == null) continue;
+
+			int id = nextId++;
+			newPaths[id] = change.getKey();
+			newTerms[id] = document.terms();
+			newLengths[id] = document.length();
+			newIds.put(change.getKey(), id);
+			for(int i = 0; i < document.terms().length; i++) {
+				IntList posting = addedPostings.computeIfAbsent(document.terms()[i], t -> new IntList(2));
+				posting.add(id);
+				posting.add(document.frequencies()[i]);
+			}
+		}
+
+		// Only the posting lists of terms of changed posts are copied. New ids are larger than all existing ones, so appending keeps the lists sorted
+		Map<String, int[]> newPostings = new HashMap<>(postings);
+		addedPostings.forEach((term, additions) -> {
+			int[] posting = postings.get(term);
+			IntList merged = new IntList((posting == null ? 0 : posting.length) + additions.size());
+			if(posting != null) {
+				for(int i = 0; i < posting.length; i += 2) {
+					if(removedIds.get(posting[i])) continue;
+					merged.add(posting[i]);
+					merged.add(posting[i + 1]);
+				}
+			}
+			for(int i = 0; i < additions.size(); i++) merged.add(additions.get(i));
+
+			if(merged.size() == 0) {
+				newPostings.remove(term);
+			}else {
+				newPostings.put(term, merged.toArray());
+			}
+		});
+
+		return new SearchIndex(newPaths, newTerms, newLengths, newIds, newPostings, newCount, newTotalLength);
+	}
+
+	private SearchIndex compact(Map<PostPath, SearchDocument> changes, int newCount, long newTotalLength) {
+		PostPath[] newPaths = new PostPath[newCount];
+		String[][] newTerms = new String[newCount][];
+		int[] newLengths = new int[newCount];
+		Map<PostPath, Integer> newIds = new HashMap<>();
+
+		// Maps the ids of the posts that are kept to their new ids
+		int[] idMap = new int[paths.length];
+		Arrays.fill(idMap, -1);
+		int nextId = 0;
+		for(int id = 0; id < paths.length; id++) {
+			if(paths[id] == null || changes.containsKey(paths[id])) continue;
+			idMap[id] = nextId;
+			newPaths[nextId] = paths[id];
+			newTerms[nextId] = terms[id];
+			newLengths[nextId] = lengths[id];
+			newIds.put(paths[id], nextId++);
+		}
+
+		Map<String, IntList> newPostings = new HashMap<>();
+		postings.forEach((term, posting) -> {
+			IntList remapped = new IntList(posting.length);
+			for(int i = 0; i < posting.length; i += 2) {
+				if(idMap[posting[i]] == -1) continue;
+				remapped.add(idMap[posting[i]]);
+				remapped.add(posting[i + 1]);
+			}
+			if(remapped.size() > 0) newPostings.put(term, remapped);
+		});
+
+		for(Map.Entry<PostPath, SearchDocument> change : changes.entrySet()) {
+			SearchDocument document = change.getValue();
+			if(document == null) continue;
+
+			int id = nextId++;
+			newPaths[id] = change.getKey();
+			newTerms[id] = document.terms();
+			newLengths[id] = document.length();
+			newIds.put(change.getKey(), id);
+			for(int i = 0; i < document.terms().length; i++) {
+				IntList posting = newPostings.computeIfAbsent(document.terms()[i], t -> new IntList(2));
+				posting.add(id);
+				posting.add(document.frequencies()[i]);
+			}
+		}
+
+		Map<String, int[]> compactPostings = new HashMap<>(newPostings.size());
+		newPostings.forEach((term, posting) -> compactPostings.put(term, posting.toArray()));
+		return new SearchIndex(newPaths, newTerms, newLengths, newIds, compactPostings, newCount, newTotalLength);
+	}
+
+	public static SearchIndex empty() {
+		return EMPTY;
+	}
+
+}
@@ -0,0 +1,33 @@
+package me.mrletsplay.mdblog.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class Tokenizer {
+
+	private static final int
+		MIN_LENGTH = 2,
+		MAX_LENGTH = 64;
+
+	// Splits the text at everything that isn't a letter or digit. Terms are lowercased, very short and very long terms are dropped
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		int start = -1;
+		for(int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if(wordChar) {
+				if(start == -1) start = i;
+				continue;
+			}
+
+			if(start != -1) {
+				int length = i - start;
+				if(length >= MIN_LENGTH && length <= MAX_LENGTH) tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+}
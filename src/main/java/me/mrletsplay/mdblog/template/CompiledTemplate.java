@@ -0,0 +1,86 @@
+package me.mrletsplay.mdblog.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledTemplate {
+
+	private final String source;
+	private final String[] literals;
+	private final String[] placeholders;
+	private final int literalsLength;
+
+	private CompiledTemplate(String source, String[] literals, String[] placeholders) {
+		this.source = source;
+		this.literals = literals;
+		this.placeholders = placeholders;
+
+		int literalsLength = 0;
+		for(String literal : literals) literalsLength += literal.length();
+		this.literalsLength = literalsLength;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public String render(String... variables) {
+		if(variables.length % 2 != 0) throw new IllegalArgumentException("Invalid number of arguments");
+
+		int length = literalsLength;
+		for(int i = 1; i < variables.length; i += 2) {
+			length += variables[i].length();
+		}
+
+		StringBuilder builder = new StringBuilder(length);
+		builder.append(literals[0]);
+		for(int i = 0; i < placeholders.length; i++) {
+			String value = getValue(placeholders[i], variables);
+			if(value != null) {
+				builder.append(value);
+			}else {
+				// Unknown placeholders are kept as they are
+				builder.append('{').append(placeholders[i]).append('}');
+			}
+			builder.append(literals[i + 1]);
+		}
+
+		return builder.toString();
+	}
+
+	private static String getValue(String placeholder, String[] variables) {
+		for(int i = 0; i < variables.length; i += 2) {
+			if(variables[i].equals(placeholder)) return variables[i + 1];
+		}
+		return null;
+	}
+
+	public static CompiledTemplate compile(String template) {
+		List<String> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+
+		int literalStart = 0;
+		int index = 0;
+		while((index = template.indexOf('{', index)) != -1) {
+			int end = index + 1;
+			while(end < template.length() && isPlaceholderChar(template.charAt(end))) end++;
+
+			if(end == index + 1 || end >= template.length() || template.charAt(end) != '}') {
+				index++;
+				continue;
+			}
+
+			literals.add(template.substring(literalStart, index));
+			placeholders.add(template.substring(index + 1, end));
+			literalStart = index = end + 1;
+		}
+
+		literals.add(template.substring(literalStart));
+		return new CompiledTemplate(template, literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+	}
+
+	private static boolean isPlaceholderChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+	}
+
+}
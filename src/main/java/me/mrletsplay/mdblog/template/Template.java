@@ -6,6 +6,7 @@ public enum Template {
 	INDEX_POST("index-post"),
 	INDEX_SUB_BLOG("index-sub-blog"),
 	POST("post"),
+	SEARCH("search"),
 	;
 
 	private final String name;
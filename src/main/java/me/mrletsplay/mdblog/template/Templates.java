@@ -1,37 +1,85 @@
 package me.mrletsplay.mdblog.template;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 
+import me.mrletsplay.mdblog.util.Checksums;
+
 public class Templates {
 
 	private Templates defaults;
-	private Map<Template, String> templates;
+	private Map<Template, CompiledTemplate> templates;
+	private volatile Map<Template, CompiledTemplate> resolved;
+	private String checksum;
+	private Instant lastModified;
 
 	public Templates(Templates defaults) {
 		this.defaults = defaults;
-		this.templates = new HashMap<>();
+		this.templates = new EnumMap<>(Template.class);
+		this.lastModified = Instant.EPOCH;
 	}
 
 	public String get(Template template) {
-		return templates.getOrDefault(template, defaults == null ? null : defaults.get(template));
+		CompiledTemplate compiled = getCompiled(template);
+		return compiled == null ? null : compiled.getSource();
+	}
+
+	public CompiledTemplate getCompiled(Template template) {
+		Map<Template, CompiledTemplate> resolved = this.resolved;
+		if(resolved == null) {
+			// Resolve the defaults once instead of walking the chain for every render
+			Map<Template, CompiledTemplate> newResolved = new EnumMap<>(Template.class);
+			for(Template t : Template.values()) {
+				CompiledTemplate compiled = templates.get(t);
+				if(compiled == null && defaults != null) compiled = defaults.getCompiled(t);
+				if(compiled != null) newResolved.put(t, compiled);
+			}
+			this.resolved = resolved = Collections.unmodifiableMap(newResolved);
+		}
+
+		return resolved.get(template);
 	}
 
 	public void put(Template template, String templateContent) {
-		templates.put(template, templateContent);
+		templates.put(template, CompiledTemplate.compile(templateContent));
+		resolved = null;
+		checksum = null;
 	}
 
-	public String render(Template template, String... variables) {
-		if(variables.length % 2 != 0) throw new IllegalArgumentException("Invalid number of arguments");
+	public String getChecksum() {
+		if(checksum == null) {
+			MessageDigest digest = Checksums.newDigest();
+			for(Template template : Template.values()) {
+				String content = get(template);
+				if(content == null) continue;
+				digest.update(template.getName().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				digest.update(content.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			checksum = Checksums.toHex(digest);
+		}
 
-		String content = get(template);
+		return checksum;
+	}
 
-		for(int i = 0; i < variables.length; i += 2) {
-			String variable = variables[i];
-			content = content.replace("{" + variable + "}", variables[i + 1]);
-		}
+	// The latest modification of the template files or of the defaults, used as the last modification of rendered pages
+	public Instant getLastModified() {
+		if(defaults == null) return lastModified;
+		Instant defaultsModified = defaults.getLastModified();
+		return defaultsModified.isAfter(lastModified) ? defaultsModified : lastModified;
+	}
 
-		return content;
+	public void setLastModified(Instant lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public String render(Template template, String... variables) {
+		return getCompiled(template).render(variables);
 	}
 
 }
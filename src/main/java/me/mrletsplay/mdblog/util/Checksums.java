@@ -0,0 +1,32 @@
+package me.mrletsplay.mdblog.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class Checksums {
+
+	private static final String ALGORITHM = "MD5";
+
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public static String checksum(byte[] data) {
+		return HexFormat.of().formatHex(newDigest().digest(data));
+	}
+
+	public static String checksum(String data) {
+		return checksum(data.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static String toHex(MessageDigest digest) {
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+}
@@ -0,0 +1,51 @@
+package me.mrletsplay.mdblog.util;
+
+import me.mrletsplay.mrcore.http.HttpUtils;
+
+public enum LinkStyle {
+
+	// Tags and pages are selected using query parameters, used when serving the blog
+	QUERY,
+
+	// Every tag and page is a separate file in the directory of the index, used for static exports
+	STATIC,
+	;
+
+	public String getIndexLink(String tag, int page) {
+		if(this == QUERY) {
+			String query = "";
+			if(tag != null) query += "&tag=" + HttpUtils.urlEncode(tag);
+			if(page > 1) query += "&page=" + page;
+			return query.isEmpty() ? "./" : "./?" + query.substring(1);
+		}
+
+		if(tag == null && page <= 1) return "./";
+
+		// The file name contains the encoded tag, so it needs to be encoded again for the link
+		return HttpUtils.urlEncode(getIndexFileName(tag, page));
+	}
+
+	// The path is relative to the directory of the linking page
+	public String getPostLink(String path) {
+		if(this == QUERY) return path;
+		return getPostFileName(path);
+	}
+
+	// Links to the index of a sub-blog in the directory of the linking page. Static hosts and file:// URLs don't resolve a directory to its index file
+	public String getChildIndexLink(String name) {
+		if(this == QUERY) return name + "/";
+		return name + "/" + getIndexFileName(null, 1);
+	}
+
+	public static String getPostFileName(String name) {
+		return name + ".html";
+	}
+
+	public static String getIndexFileName(String tag, int page) {
+		String name = "index";
+		if(tag != null) name += ".tag." + HttpUtils.urlEncode(tag);
+		if(page > 1) name += ".page." + page;
+		return name + ".html";
+	}
+
+}
@@ -4,75 +4,130 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 
-public class PostPath {
+// Paths share their parents, so getting the parent or a child doesn't copy the other segments
+public class PostPath implements Comparable<PostPath> {
 
 	private static final PostPath ROOT = new PostPath();
 
-	private final String[] segments;
+	private final PostPath parent;
+	private final String name;
+	private final int length;
+	private final int hash;
 
-	private PostPath(String[] segments) {
-		if(segments.length == 0) throw new IllegalArgumentException("Number of segments must be greater than 0");
-		this.segments = segments;
+	private PostPath(PostPath parent, String name) {
+		this.parent = parent;
+		this.name = name;
+		this.length = parent.length + 1;
+		this.hash = 31 * parent.hash + this.name.hashCode();
 	}
 
 	private PostPath() {
-		this.segments = new String[0];
+		this.parent = null;
+		this.name = null;
+		this.length = 0;
+		this.hash = 1;
 	}
 
 	public String[] getSegments() {
+		String[] segments = new String[length];
+		for(PostPath path = this; path.length > 0; path = path.parent) {
+			segments[path.length - 1] = path.name;
+		}
 		return segments;
 	}
 
+	public String getSegment(int index) {
+		if(index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+		return getAncestor(index + 1).name;
+	}
+
 	public PostPath getParent() {
-		if(segments.length == 1) return ROOT;
-		return new PostPath(Arrays.copyOfRange(segments, 0, segments.length - 1));
+		if(length == 0) throw new IllegalArgumentException("Root doesn't have a parent");
+		return parent;
+	}
+
+	private PostPath getAncestor(int length) {
+		PostPath path = this;
+		while(path.length > length) path = path.parent;
+		return path;
 	}
 
 	public PostPath concat(PostPath other) {
-		String[] newPath = Arrays.copyOf(segments, segments.length + other.length());
-		System.arraycopy(other.segments, 0, newPath, segments.length, other.length());
-		return new PostPath(newPath);
+		PostPath path = this;
+		for(String segment : other.getSegments()) path = path.child(segment);
+		return path;
+	}
+
+	public PostPath child(String name) {
+		return new PostPath(this, name);
+	}
+
+	// Segments of paths in the tree are interned, so they are shared between all paths and compared by reference first. Other paths, e.g. requested ones, aren't interned
+	private PostPath internedChild(String name) {
+		return new PostPath(this, name.intern());
 	}
 
 	public boolean startsWith(PostPath other) {
-		if(other.segments.length > segments.length) return false;
-		for(int i = 0; i < other.segments.length; i++) {
-			if(!segments[i].equals(other.segments[i])) return false;
-		}
-		return true;
+		if(other.length > length) return false;
+		return getAncestor(other.length).equals(other);
 	}
 
 	public PostPath subPath(int fromIndex) throws IllegalArgumentException {
-		if(fromIndex < 0 || fromIndex >= segments.length) throw new  IllegalArgumentException("fromIndex must be less than path length");
-		return new PostPath(Arrays.copyOfRange(segments, fromIndex, segments.length));
+		if(fromIndex < 0 || fromIndex >= length) throw new  IllegalArgumentException("fromIndex must be less than path length");
+		if(fromIndex == 0) return this;
+
+		String[] segments = getSegments();
+		PostPath path = ROOT;
+		for(int i = fromIndex; i < segments.length; i++) path = path.child(segments[i]);
+		return path;
 	}
 
 	public PostPath subPath(int fromIndex, int toIndex) throws IllegalArgumentException {
-		if(fromIndex < 0 || fromIndex >= segments.length) throw new  IllegalArgumentException("fromIndex must be less than path length");
-		if(toIndex <= fromIndex || toIndex >= segments.length) throw new  IllegalArgumentException("fromIndex must be less than toIndex and path length");
-		return new PostPath(Arrays.copyOfRange(segments, fromIndex, toIndex));
+		if(fromIndex < 0 || fromIndex >= length) throw new  IllegalArgumentException("fromIndex must be less than path length");
+		if(toIndex <= fromIndex || toIndex >= length) throw new  IllegalArgumentException("fromIndex must be less than toIndex and path length");
+		return getAncestor(toIndex).subPath(fromIndex);
 	}
 
 	public String getName() {
 		if(this == ROOT) return "/";
-		return segments[segments.length - 1];
+		return name;
 	}
 
 	public int length() {
-		return segments.length;
+		return length;
 	}
 
 	public Path toNioPath() {
 		if(this == ROOT) return Paths.get("/");
+		String[] segments = getSegments();
 		return Paths.get(segments[0], Arrays.copyOfRange(segments, 1, segments.length));
 	}
 
+	@Override
+	public int compareTo(PostPath other) {
+		// A path sorts after all of its parents
+		if(length > other.length) {
+			int result = getAncestor(other.length).compareSameLength(other);
+			return result != 0 ? result : 1;
+		}
+
+		if(length < other.length) {
+			int result = compareSameLength(other.getAncestor(length));
+			return result != 0 ? result : -1;
+		}
+
+		return compareSameLength(other);
+	}
+
+	private int compareSameLength(PostPath other) {
+		if(this == other) return 0;
+		int result = parent.compareSameLength(other.parent);
+		return result != 0 ? result : name.compareTo(other.name);
+	}
+
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(segments);
-		return result;
+		return hash;
 	}
 
 	@Override
@@ -84,12 +139,38 @@ public class PostPath {
 		if (getClass() != obj.getClass())
 			return false;
 		PostPath other = (PostPath) obj;
-		return Arrays.equals(segments, other.segments);
+		if(hash != other.hash || length != other.length) return false;
+
+		// Equal paths often share a parent, so comparing stops there
+		PostPath path = this;
+		while(path != other) {
+			if(!path.name.equals(other.name)) return false;
+			path = path.parent;
+			other = other.parent;
+		}
+		return true;
 	}
 
 	@Override
 	public String toString() {
-		return String.join("/", segments);
+		return toString(0);
+	}
+
+	// Joins the segments starting at fromIndex, e.g. to link to the path relative to one of its parents
+	public String toString(int fromIndex) {
+		if(fromIndex >= length) return "";
+
+		StringBuilder builder = new StringBuilder();
+		appendSegments(builder, fromIndex);
+		return builder.toString();
+	}
+
+	private void appendSegments(StringBuilder builder, int fromIndex) {
+		if(length - 1 > fromIndex) {
+			parent.appendSegments(builder, fromIndex);
+			builder.append('/');
+		}
+		builder.append(name);
 	}
 
 	public static PostPath root() {
@@ -98,26 +179,37 @@ public class PostPath {
 
 	public static PostPath parse(String path) {
 		if(path == null || path.isEmpty()) throw new IllegalArgumentException("Path must not be null or empty");
-		return new PostPath(path.split("/"));
+
+		// Trailing slashes are ignored, empty segments in between are kept. Requested paths are short-lived, so their segments aren't interned
+		int end = path.length();
+		while(end > 0 && path.charAt(end - 1) == '/') end--;
+		if(end == 0) throw new IllegalArgumentException("Number of segments must be greater than 0");
+
+		PostPath parsed = ROOT;
+		int start = 0;
+		while(true) {
+			int index = path.indexOf('/', start);
+			if(index == -1 || index >= end) {
+				return new PostPath(parsed, path.substring(start, end));
+			}
+
+			parsed = new PostPath(parsed, path.substring(start, index));
+			start = index + 1;
+		}
 	}
 
+	// Paths of files are used to build the tree, so their segments are interned
 	public static PostPath of(Path path) {
-		if(path.getNameCount() == 0) return ROOT;
-		String[] names = new String[path.getNameCount()];
+		if(path == null || path.getNameCount() == 0 || path.toString().isEmpty()) return ROOT;
+		PostPath postPath = ROOT;
 		for(int i = 0; i < path.getNameCount(); i++) {
-			names[i] = path.getName(i).toString();
+			postPath = postPath.internedChild(path.getName(i).toString());
 		}
-		return new PostPath(names);
+		return postPath;
 	}
 
 	public static PostPath of(Path path, String name) {
-		if(path == null) return new PostPath(new String[] {name});
-		String[] names = new String[path.getNameCount() + 1];
-		for(int i = 0; i < path.getNameCount(); i++) {
-			names[i] = path.getName(i).toString();
-		}
-		names[names.length - 1] = name;
-		return new PostPath(names);
+		return of(path).internedChild(name);
 	}
 
 }
@@ -0,0 +1,42 @@
+package me.mrletsplay.mdblog.util;
+
+import java.time.LocalDate;
+
+// The relative times of all dates around a day, so resolving a date while serving is a single lookup
+public class RelativeDateTable {
+
+	private static final int
+		PAST_DAYS = 20 * 366,
+		FUTURE_DAYS = 366;
+
+	private static volatile RelativeDateTable current;
+
+	private final LocalDate day;
+	private final String[] relativeTimes;
+
+	private RelativeDateTable(LocalDate day) {
+		this.day = day;
+		this.relativeTimes = new String[PAST_DAYS + FUTURE_DAYS + 1];
+		for(int i = 0; i < relativeTimes.length; i++) {
+			relativeTimes[i] = TimeFormatter.toRelativeTime(day.plusDays(i - PAST_DAYS), day);
+		}
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	public String get(long epochDay) {
+		long index = epochDay - day.toEpochDay() + PAST_DAYS;
+		if(index < 0 || index >= relativeTimes.length) return TimeFormatter.toRelativeTime(LocalDate.ofEpochDay(epochDay), day);
+		return relativeTimes[(int) index];
+	}
+
+	// The table is only recomputed once the day changes
+	public static RelativeDateTable forDay(LocalDate day) {
+		RelativeDateTable table = current;
+		if(table == null || !table.day.equals(day)) current = table = new RelativeDateTable(day);
+		return table;
+	}
+
+}
@@ -9,6 +9,8 @@ import java.time.format.DateTimeFormatterBuilder;
 
 public class TimeFormatter {
 
+	public static final String RELATIVE_TIME_MARKER = "<time class=\"relative\" datetime=\"";
+
 	private static final DateTimeFormatter
 		DATE_ONLY = DateTimeFormatter.ISO_LOCAL_DATE,
 		DATE_AND_TIME = new DateTimeFormatterBuilder()
@@ -26,8 +28,12 @@ public class TimeFormatter {
 	}
 
 	public static String toRelativeTime(Instant instant) {
+		return toRelativeTime(toLocalDate(instant), LocalDate.now());
+	}
+
+	public static String toRelativeTime(LocalDate date, LocalDate today) {
 		// TODO: potentially use ChronoUnit#between instead to support more units
-		Period p = Period.between(LocalDate.now(), instant.atZone(ZoneId.systemDefault()).toLocalDate());
+		Period p = Period.between(today, date);
 
 		if(p.isZero()) return "today";
 		boolean negative = p.isNegative();
@@ -50,6 +56,16 @@ public class TimeFormatter {
 		return b.toString();
 	}
 
+	// Rendered documents only contain the date, the relative time is filled in when the document is served
+	public static String toRelativeTimeMarker(Instant instant) {
+		String date = toDateOnly(instant);
+		return RELATIVE_TIME_MARKER + date + "\">" + date + "</time>";
+	}
+
+	public static LocalDate toLocalDate(Instant instant) {
+		return instant.atZone(ZoneId.systemDefault()).toLocalDate();
+	}
+
 	private static void appendTime(StringBuilder builder, int x, String unit) {
 		builder.append(x).append(" ").append(unit);
 		if(x > 1) builder.append("s");
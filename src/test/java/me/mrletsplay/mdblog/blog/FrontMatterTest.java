@@ -0,0 +1,79 @@
+package me.mrletsplay.mdblog.blog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+public class FrontMatterTest {
+
+	@Test
+	public void splitsAtSeparator() throws IOException {
+		assertSplitsLikeString("title: Title\ndate: 2024-01-01\n---\n# Post\n\nContent");
+		assertSplitsLikeString("title: Title\n---\n");
+		assertSplitsLikeString("title: Title\n---\nFirst\n---\nSecond");
+		assertSplitsLikeString("title: T\u00eftl\u00e9\n---\nC\u00f6ntent \u2713");
+	}
+
+	@Test
+	public void splitsAfterPartialSeparators() throws IOException {
+		assertSplitsLikeString("title: Title\n--\n---\nContent");
+		assertSplitsLikeString("title: Title\n\n---\nContent");
+		assertSplitsLikeString("title: Title\n----\n---\nContent");
+		assertSplitsLikeString("title: Title\n---x\n---\nContent");
+		assertSplitsLikeString("title: Title\n-\n--\n---\nContent");
+	}
+
+	@Test
+	public void splitsAtSeparatorAcrossBuffers() throws IOException {
+		// The separator starts at every position around the end of the first 4096 byte buffer
+		for(int length = 4096 - 8; length <= 4096 + 2; length++) {
+			assertSplitsLikeString("a".repeat(length) + "\n---\nContent");
+			assertSplitsLikeString("a".repeat(length) + "\n--\n---\nContent");
+		}
+
+		assertSplitsLikeString("a".repeat(3 * 4096 - 2) + "\n---\nContent");
+	}
+
+	@Test
+	public void failsWithoutSeparator() throws IOException {
+		assertFails("title: Title\n\n# Post");
+		assertFails("title: Title\n---");
+		assertFails("title: Title\n--\n");
+		assertFails("");
+		assertFails("a".repeat(4096 - 2) + "\n--");
+	}
+
+	private static void assertSplitsLikeString(String content) throws IOException {
+		String[] expected = content.split("\n---\n", 2);
+		Path file = write(content);
+		try {
+			FrontMatter frontMatter = FrontMatter.scan(file);
+			assertEquals(expected[0], frontMatter.metadata());
+			assertEquals(expected[1], frontMatter.readBody(file));
+		}finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void assertFails(String content) throws IOException {
+		Path file = write(content);
+		try {
+			assertThrows(IOException.class, () -> FrontMatter.scan(file));
+		}finally {
+			Files.delete(file);
+		}
+	}
+
+	private static Path write(String content) throws IOException {
+		Path file = Files.createTempFile("post", ".md");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+}
@@ -0,0 +1,156 @@
+package me.mrletsplay.mdblog.blog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import me.mrletsplay.mdblog.util.PostPath;
+
+public class PostTreeTest {
+
+	private static final String[] TAGS = {"java", "web", "news"};
+	private static final String[] DIRECTORIES = {"", "a", "a/b", "c"};
+
+	@Test
+	public void ordersPostsAfterChanges() {
+		PostTree tree = PostTree.empty();
+		tree = tree.withChanges(Map.of(
+			PostPath.parse("old"), post(1, "java"),
+			PostPath.parse("new"), post(3, "java", "web"),
+			PostPath.parse("middle"), post(2, "web")));
+		assertPaths(List.of("new", "middle", "old"), tree.getPostsNewestFirst());
+		assertPaths(List.of("new", "old"), tree.getPostsWithTag("java"));
+		assertPaths(List.of("new", "middle"), tree.getPostsWithTag("web"));
+
+		// Moving a post to a different date and tag
+		tree = tree.withChanges(Map.of(PostPath.parse("old"), post(4, "web")));
+		assertPaths(List.of("old", "new", "middle"), tree.getPostsNewestFirst());
+		assertPaths(List.of("new"), tree.getPostsWithTag("java"));
+		assertPaths(List.of("old", "new", "middle"), tree.getPostsWithTag("web"));
+
+		Map<PostPath, Post> removal = new HashMap<>();
+		removal.put(PostPath.parse("new"), null);
+		tree = tree.withChanges(removal);
+		assertPaths(List.of("old", "middle"), tree.getPostsNewestFirst());
+		assertPaths(List.of(), tree.getPostsWithTag("java"));
+		assertEquals(Set.of("web"), tree.getTags());
+	}
+
+	@Test
+	public void ordersPostsWithSameDateByPath() {
+		PostTree tree = PostTree.empty().withChanges(Map.of(
+			PostPath.parse("b"), post(1, "java"),
+			PostPath.parse("c"), post(1, "java"),
+			PostPath.parse("a"), post(1, "java")));
+		tree = tree.withChanges(Map.of(PostPath.parse("ab"), post(1, "java")));
+		assertPaths(List.of("a", "ab", "b", "c"), tree.getPostsNewestFirst());
+		assertPaths(List.of("a", "ab", "b", "c"), tree.getPostsWithTag("java"));
+	}
+
+	@Test
+	public void removesEmptyDirectories() {
+		PostTree tree = PostTree.empty().withChanges(Map.of(PostPath.parse("a/b/post"), post(1, "java")));
+		assertEquals(List.of("a"), tree.getChildNames());
+
+		Map<PostPath, Post> removal = new HashMap<>();
+		removal.put(PostPath.parse("a/b/post"), null);
+		tree = tree.withChanges(removal);
+		assertEquals(List.of(), tree.getChildNames());
+		assertNull(tree.getNode(PostPath.parse("a")));
+	}
+
+	@Test
+	public void sharesUnchangedNodes() {
+		PostTree tree = PostTree.empty().withChanges(Map.of(
+			PostPath.parse("a/post"), post(1, "java"),
+			PostPath.parse("c/post"), post(2, "web")));
+		PostTree changed = tree.withChanges(Map.of(PostPath.parse("a/other"), post(3, "java")));
+		assertSame(tree.getNode(PostPath.parse("c")), changed.getNode(PostPath.parse("c")));
+		assertSame(tree, tree.withChanges(Map.of()));
+	}
+
+	@Test
+	public void matchesSortedPostsAfterRandomChanges() {
+		Random random = new Random(42);
+		Map<PostPath, Post> expected = new HashMap<>();
+		PostTree tree = PostTree.empty();
+
+		for(int round = 0; round < 200; round++) {
+			Map<PostPath, Post> changes = new HashMap<>();
+			int count = 1 + random.nextInt(5);
+			for(int i = 0; i < count; i++) {
+				PostPath path = directory(DIRECTORIES[random.nextInt(DIRECTORIES.length)]).child("post-" + random.nextInt(10));
+				Post post = random.nextInt(4) == 0 ? null : post(random.nextInt(20), randomTags(random));
+				changes.put(path, post);
+				if(post == null) {
+					expected.remove(path);
+				}else {
+					expected.put(path, post);
+				}
+			}
+
+			tree = tree.withChanges(changes);
+			assertEquals(expected.size(), tree.size());
+			for(String name : DIRECTORIES) {
+				PostTree node = tree.getNode(directory(name));
+				if(node != null) assertMatches(expected, node, directory(name));
+			}
+		}
+	}
+
+	private static void assertMatches(Map<PostPath, Post> expected, PostTree node, PostPath directory) {
+		assertEquals(sorted(expected, directory, null, false), node.getPostsNewestFirst());
+		assertEquals(sorted(expected, directory, null, true), node.getNewestPosts(null, true, 0));
+		for(String tag : TAGS) {
+			assertEquals(sorted(expected, directory, tag, false), node.getPostsWithTag(tag));
+			assertEquals(sorted(expected, directory, tag, true), node.getNewestPosts(tag, true, 0));
+
+			List<PostEntry> limited = sorted(expected, directory, tag, true);
+			assertEquals(limited.subList(0, Math.min(3, limited.size())), node.getNewestPosts(tag, true, 3));
+		}
+	}
+
+	private static List<PostEntry> sorted(Map<PostPath, Post> posts, PostPath directory, String tag, boolean recursive) {
+		List<PostEntry> entries = new ArrayList<>();
+		posts.forEach((path, post) -> {
+			if(recursive ? !path.startsWith(directory) : !path.getParent().equals(directory)) return;
+			if(tag != null && !post.getMetadata().tags().contains(tag)) return;
+			entries.add(new PostEntry(path, post));
+		});
+		entries.sort(PostEntry.NEWEST_FIRST);
+		return entries;
+	}
+
+	private static String[] randomTags(Random random) {
+		List<String> tags = new ArrayList<>();
+		for(String tag : TAGS) {
+			if(random.nextBoolean()) tags.add(tag);
+		}
+		return tags.toArray(String[]::new);
+	}
+
+	private static PostPath directory(String name) {
+		return name.isEmpty() ? PostPath.root() : PostPath.parse(name);
+	}
+
+	private static void assertPaths(List<String> expected, List<PostEntry> entries) {
+		assertEquals(expected, entries.stream().map(e -> e.path().toString()).toList());
+	}
+
+	private static Post post(int day, String... tags) {
+		PostMetadata metadata = new PostMetadata(Instant.EPOCH.plusSeconds(day * 86400L), "Title", "Author", Set.of(tags), "Description");
+		return new Post(Path.of("post.md"), "checksum", "render-checksum", metadata, null);
+	}
+
+}
@@ -0,0 +1,81 @@
+package me.mrletsplay.mdblog.blog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import me.mrletsplay.mdblog.http.CachedDocument;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
+
+public class RenderCacheTest {
+
+	@Test
+	public void loadsEntry() throws IOException {
+		Path directory = Files.createTempDirectory("render-cache");
+		try {
+			Path postFile = directory.resolve("post.md");
+			Files.writeString(postFile, "");
+
+			PostMetadata metadata = new PostMetadata(Instant.EPOCH, "Title", "Author", Set.of("tag"), "Description");
+			CachedDocument content = new CachedDocument(MimeType.HTML, "<p>Post</p>".getBytes(StandardCharsets.UTF_8), Instant.EPOCH);
+
+			RenderCache cache = new RenderCache(directory.resolve("cache"));
+			cache.save(new Post(postFile, "checksum", "render-checksum", metadata, content));
+
+			// The last modification is derived from the files the post was rendered from, so it doesn't depend on when the entry was written
+			Instant lastModified = Instant.ofEpochSecond(1700000000);
+			Post loaded = cache.load(postFile, "checksum", "render-checksum", lastModified);
+			assertNotNull(loaded);
+			assertEquals(lastModified, loaded.getContent().getLastModified());
+			assertEquals(metadata, loaded.getMetadata());
+			assertEquals("<p>Post</p>", new String(loaded.getContent().getContent(), StandardCharsets.UTF_8));
+			assertNull(cache.load(postFile, "checksum", "other-render-checksum", lastModified));
+		}finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void retainKeepsTemporaryFiles() throws IOException {
+		Path directory = Files.createTempDirectory("render-cache");
+		try {
+			Path postFile = directory.resolve("post.md");
+			Files.writeString(postFile, "");
+
+			PostMetadata metadata = new PostMetadata(Instant.EPOCH, "Title", "Author", Set.of(), "Description");
+			CachedDocument content = new CachedDocument(MimeType.HTML, "<p>Post</p>".getBytes(StandardCharsets.UTF_8), Instant.EPOCH);
+			RenderCache cache = new RenderCache(directory.resolve("cache"));
+			cache.save(new Post(postFile, "checksum", "render-checksum", metadata, content));
+
+			// An entry that is still being written by a lazily loaded post
+			Path tempFile = directory.resolve("cache").resolve("entry123.tmp");
+			Files.writeString(tempFile, "");
+
+			cache.retain(List.of());
+			assertNull(cache.load(postFile, "checksum", "render-checksum", Instant.EPOCH));
+			assertTrue(Files.exists(tempFile));
+		}finally {
+			delete(directory);
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try(Stream<Path> files = Files.walk(directory)) {
+			for(Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+		}
+	}
+
+}
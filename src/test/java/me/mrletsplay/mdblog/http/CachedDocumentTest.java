@@ -0,0 +1,72 @@
+package me.mrletsplay.mdblog.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+
+import me.mrletsplay.mdblog.util.TimeFormatter;
+import me.mrletsplay.simplehttpserver.http.util.MimeType;
+
+public class CachedDocumentTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+	private static CachedDocument createDocument(LocalDate date) {
+		Instant instant = date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+		String html = "<p>by author " + TimeFormatter.toRelativeTimeMarker(instant) + "</p>";
+		return new CachedDocument(MimeType.HTML, html.getBytes(StandardCharsets.UTF_8), Instant.EPOCH);
+	}
+
+	@Test
+	public void resolvesRelativeTimes() {
+		CachedDocument resolved = createDocument(TODAY.minusDays(3)).resolve(TODAY);
+		assertEquals("<p>by author <time class=\"relative\" datetime=\"2024-03-07\">3 days ago</time></p>", new String(resolved.getContent(), StandardCharsets.UTF_8));
+		assertEquals(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), resolved.getLastModified());
+	}
+
+	@Test
+	public void resolvedDocumentIsServedAsIs() {
+		// The resolved document still contains the markers, serving it must not resolve it again
+		CachedDocument resolved = createDocument(TODAY.minusDays(1)).resolve(TODAY);
+		assertSame(resolved, resolved.resolve(TODAY));
+		assertSame(resolved, resolved.resolve(TODAY.plusDays(1)));
+	}
+
+	@Test
+	public void usesVersionForETag() {
+		// The ETag must be known before the document is rendered, so it doesn't depend on the content
+		CachedDocument document = new CachedDocument(MimeType.HTML, "<p>Post</p>".getBytes(StandardCharsets.UTF_8), Instant.EPOCH, "version");
+		assertEquals("\"version\"", document.getETag(ContentEncoding.IDENTITY));
+		assertEquals("\"version-gzip\"", document.getETag(ContentEncoding.GZIP));
+
+		CachedDocument unversioned = new CachedDocument(MimeType.HTML, "<p>Post</p>".getBytes(StandardCharsets.UTF_8), Instant.EPOCH);
+		assertEquals("\"" + unversioned.getChecksum() + "\"", unversioned.getETag(ContentEncoding.IDENTITY));
+	}
+
+	@Test
+	public void keepsEncodingsWhenResolving() {
+		CachedDocument document = createDocument(TODAY.minusDays(1));
+		CachedDocument resolved = document.resolve(TODAY);
+		assertEquals(document.getEncodedContent().keySet(), resolved.getEncodedContent().keySet());
+		assertEquals(document.getVersion(), resolved.getVersion());
+	}
+
+	@Test
+	public void keepsResolvedDocumentUntilDayChanges() {
+		CachedDocument document = createDocument(TODAY.minusDays(1));
+		CachedDocument resolved = document.resolve(TODAY);
+		assertSame(resolved, document.resolve(TODAY));
+
+		CachedDocument nextDay = document.resolve(TODAY.plusDays(1));
+		assertNotSame(resolved, nextDay);
+		assertEquals("<p>by author <time class=\"relative\" datetime=\"2024-03-09\">2 days ago</time></p>", new String(nextDay.getContent(), StandardCharsets.UTF_8));
+	}
+
+}
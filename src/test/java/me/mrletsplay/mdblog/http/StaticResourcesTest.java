@@ -0,0 +1,60 @@
+package me.mrletsplay.mdblog.http;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import me.mrletsplay.mdblog.util.PostPath;
+
+public class StaticResourcesTest {
+
+	private static final PostPath BASE_CSS = PostPath.parse("style/base.css");
+
+	private static StaticResources load(String content) throws IOException {
+		Path file = Files.createTempFile("base", ".css");
+		try {
+			Files.writeString(file, content);
+			return StaticResources.load(Map.of(BASE_CSS, file));
+		}finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void servesCurrentFingerprint() throws IOException {
+		StaticResources resources = load("body { color: red; }");
+		PostPath fingerprinted = PostPath.parse(resources.getLink("style/base.css").substring(2));
+
+		assertSame(resources.get(BASE_CSS), resources.get(fingerprinted));
+		assertTrue(resources.isFingerprinted(fingerprinted));
+		assertFalse(resources.isFingerprinted(BASE_CSS));
+	}
+
+	@Test
+	public void servesPreviousFingerprintWithCurrentContent() throws IOException {
+		StaticResources previous = load("body { color: red; }");
+		StaticResources current = load("body { color: blue; }");
+		PostPath previousPath = PostPath.parse(previous.getLink("style/base.css").substring(2));
+
+		assertSame(current.get(BASE_CSS), current.get(previousPath));
+		assertFalse(current.isFingerprinted(previousPath));
+	}
+
+	@Test
+	public void rejectsUnknownPaths() throws IOException {
+		StaticResources resources = load("body { color: red; }");
+		assertNull(resources.get(PostPath.parse("style/base.zzzzzzzzzzzz.css")));
+		assertNull(resources.get(PostPath.parse("style/other.0123456789ab.css")));
+		assertNotNull(resources.get(PostPath.parse("style/base.0123456789ab.css")));
+	}
+
+}
@@ -0,0 +1,119 @@
+package me.mrletsplay.mdblog.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import me.mrletsplay.mdblog.blog.PostMetadata;
+import me.mrletsplay.mdblog.util.PostPath;
+
+public class SearchIndexTest {
+
+	@Test
+	public void addsAndRemovesDocuments() {
+		SearchIndex index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("a"), document("First", "apple banana"),
+			PostPath.parse("b"), document("Second", "banana cherry")));
+		assertEquals(2, index.size());
+		assertEquals(List.of(PostPath.parse("a")), index.search("apple", PostPath.root(), 10));
+		assertEquals(2, index.search("banana", PostPath.root(), 10).size());
+
+		Map<PostPath, SearchDocument> removal = new HashMap<>();
+		removal.put(PostPath.parse("a"), null);
+		SearchIndex removed = index.withChanges(removal);
+		assertEquals(1, removed.size());
+		assertEquals(List.of(), removed.search("apple", PostPath.root(), 10));
+		assertEquals(List.of(PostPath.parse("b")), removed.search("banana", PostPath.root(), 10));
+
+		// Changes create a new index, the old one stays usable
+		assertEquals(List.of(PostPath.parse("a")), index.search("apple", PostPath.root(), 10));
+	}
+
+	@Test
+	public void updatesDocuments() {
+		SearchIndex index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("a"), document("Post", "apple"),
+			PostPath.parse("b"), document("Post", "apple")));
+		SearchIndex updated = index.withChanges(Map.of(PostPath.parse("a"), document("Post", "cherry")));
+
+		assertEquals(2, updated.size());
+		assertEquals(List.of(PostPath.parse("b")), updated.search("apple", PostPath.root(), 10));
+		assertEquals(List.of(PostPath.parse("a")), updated.search("cherry", PostPath.root(), 10));
+		assertEquals(List.of(PostPath.parse("b"), PostPath.parse("a")), updated.search("post", PostPath.root(), 10));
+	}
+
+	@Test
+	public void compactsRemovedDocuments() {
+		Map<PostPath, SearchDocument> documents = new HashMap<>();
+		for(int i = 0; i < 100; i++) documents.put(PostPath.parse("post-" + i), document("Item" + i, i % 2 == 0 ? "even" : "odd"));
+		SearchIndex index = SearchIndex.empty().withChanges(documents);
+
+		// Removing most of the posts exceeds the threshold, so the index is rebuilt in the same change that adds a new post
+		Map<PostPath, SearchDocument> changes = new HashMap<>();
+		for(int i = 10; i < 100; i++) changes.put(PostPath.parse("post-" + i), null);
+		changes.put(PostPath.parse("new"), document("New", "even"));
+		SearchIndex compacted = index.withChanges(changes);
+		assertEquals(11, compacted.size());
+		assertEquals(6, compacted.search("even", PostPath.root(), 100).size());
+		assertEquals(5, compacted.search("odd", PostPath.root(), 100).size());
+		assertEquals(List.of(PostPath.parse("post-3")), compacted.search("item3", PostPath.root(), 100));
+		assertEquals(List.of(PostPath.parse("new")), compacted.search("new", PostPath.root(), 100));
+
+		// Every update leaves an unused id behind until the index is compacted again
+		SearchIndex updated = compacted;
+		for(int i = 0; i < 200; i++) updated = updated.withChanges(Map.of(PostPath.parse("post-0"), document("Item0", "update" + i)));
+		assertEquals(11, updated.size());
+		assertEquals(List.of(PostPath.parse("post-0")), updated.search("update199", PostPath.root(), 100));
+		assertEquals(List.of(), updated.search("update198", PostPath.root(), 100));
+		assertEquals(5, updated.search("even", PostPath.root(), 100).size());
+	}
+
+	@Test
+	public void filtersByPath() {
+		SearchIndex index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("blog/a"), document("Post", ""),
+			PostPath.parse("blog/sub/b"), document("Post", ""),
+			PostPath.parse("blogs/c"), document("Post", ""),
+			PostPath.parse("d"), document("Post", "")));
+
+		assertEquals(4, index.search("post", PostPath.root(), 10).size());
+		assertEquals(Set.of(PostPath.parse("blog/a"), PostPath.parse("blog/sub/b")), Set.copyOf(index.search("post", PostPath.parse("blog"), 10)));
+		assertEquals(List.of(PostPath.parse("blog/sub/b")), index.search("post", PostPath.parse("blog/sub"), 10));
+		assertEquals(List.of(), index.search("post", PostPath.parse("other"), 10));
+	}
+
+	@Test
+	public void ranksByRelevance() {
+		SearchIndex index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("body"), document("Other", "apple"),
+			PostPath.parse("title"), document("Apple", "")));
+
+		// The title is weighted higher than the body
+		assertEquals(List.of(PostPath.parse("title"), PostPath.parse("body")), index.search("apple", PostPath.root(), 10));
+		assertEquals(List.of(PostPath.parse("title")), index.search("apple", PostPath.root(), 1));
+
+		// With the same frequency, shorter posts rank higher
+		index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("long"), document("Post", "apple cherry cherry cherry cherry cherry cherry"),
+			PostPath.parse("short"), document("Post", "apple cherry")));
+		assertEquals(List.of(PostPath.parse("short"), PostPath.parse("long")), index.search("apple", PostPath.root(), 10));
+
+		// Rare terms contribute more than common ones
+		index = SearchIndex.empty().withChanges(Map.of(
+			PostPath.parse("a"), document("Post", "common"),
+			PostPath.parse("b"), document("Post", "common"),
+			PostPath.parse("c"), document("Post", "rare")));
+		assertEquals(PostPath.parse("c"), index.search("common rare", PostPath.root(), 10).get(0));
+	}
+
+	private static SearchDocument document(String title, String body) {
+		return SearchDocument.of(new PostMetadata(Instant.EPOCH, title, "", Set.of(), ""), body);
+	}
+
+}
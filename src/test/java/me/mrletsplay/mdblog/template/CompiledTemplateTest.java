@@ -0,0 +1,57 @@
+package me.mrletsplay.mdblog.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class CompiledTemplateTest {
+
+	@Test
+	public void replacesPlaceholders() {
+		assertRendersLikeReplace("<h1>{title}</h1>{content}{title}", "title", "Title", "content", "<p>Content</p>");
+		assertRendersLikeReplace("{a}{b}", "a", "1", "b", "2");
+		assertRendersLikeReplace("{date_relative} {post-count}", "date_relative", "today", "post-count", "3");
+		assertRendersLikeReplace("{title}", "title", "");
+		assertRendersLikeReplace("No placeholders", "title", "Title");
+		assertRendersLikeReplace("");
+	}
+
+	@Test
+	public void keepsMissingPlaceholders() {
+		assertRendersLikeReplace("{title} {missing}", "title", "Title");
+		assertRendersLikeReplace("{missing}{missing}");
+	}
+
+	@Test
+	public void keepsLiteralBraces() {
+		assertRendersLikeReplace("function() { return {value}; }", "value", "1");
+		assertRendersLikeReplace("{} {{value}} {value", "value", "1");
+		assertRendersLikeReplace("{ value} {value } {va lue}", "value", "1");
+		assertRendersLikeReplace("}{value}{", "value", "1");
+		assertRendersLikeReplace("{", "value", "1");
+	}
+
+	@Test
+	public void replacesInnermostOfNestedPlaceholders() {
+		assertRendersLikeReplace("{outer{inner}}", "outer", "O", "inner", "I");
+		assertRendersLikeReplace("{{inner}}", "inner", "I");
+		assertRendersLikeReplace("{outer{inner}}", "outerI", "X", "inner", "I");
+	}
+
+	@Test
+	public void doesNotReplaceInValues() {
+		// Replacing one variable after the other would also replace placeholders in the values of earlier variables
+		assertEquals("{content} Content", CompiledTemplate.compile("{title} {content}").render("title", "{content}", "content", "Content"));
+		assertEquals("{title}", CompiledTemplate.compile("{title}").render("title", "{title}"));
+	}
+
+	private static void assertRendersLikeReplace(String template, String... variables) {
+		String expected = template;
+		for(int i = 0; i < variables.length; i += 2) {
+			expected = expected.replace("{" + variables[i] + "}", variables[i + 1]);
+		}
+		assertEquals(expected, CompiledTemplate.compile(template).render(variables));
+		assertEquals(template, CompiledTemplate.compile(template).getSource());
+	}
+
+}